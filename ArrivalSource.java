@@ -0,0 +1,175 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A source of arriving Customers.
+ * Customers are generated one at a time, in order of arrival, so that the Simulator
+ * only needs to schedule the next arrival when the current one is handled.
+ * Each Customer is added straight to the EventQueue, without creating a Customer object.
+ * With a RateSchedule, the first Customer arrives when the first segment with a positive
+ * rate starts, and later arrival times are thinned to follow the schedule.
+ */
+class ArrivalSource {
+    private final RandomGenerator rd;
+    private final int count;
+    private double greedyProb;
+    private final ArrivalTrace trace;
+    private final ServiceTimes serviceTimes;
+    private final RateSchedule schedule;
+    //segment of the schedule nextTime falls in
+    private int segment;
+    private boolean recorded;
+    private int nextId;
+    private double nextTime;
+
+    /**
+     * Creates an ArrivalSource whose first Customer arrives at time 0.
+     * @param rd RandomGenerator object used for generating arrivals and Customer types.
+     * @param count Number of Customers to generate.
+     * @param greedyProb Probability of generating a greedy Customer.
+     */
+    ArrivalSource(RandomGenerator rd, int count, double greedyProb) {
+        this(rd, count, greedyProb, null);
+    }
+
+    /**
+     * Creates an ArrivalSource whose arrival rate follows a schedule.
+     * @param rd RandomGenerator object generating arrivals at the largest rate of the schedule.
+     * @param count Number of Customers to generate.
+     * @param greedyProb Probability of generating a greedy Customer.
+     * @param schedule RateSchedule, or null for a constant rate and a first Customer at time 0.
+     */
+    ArrivalSource(RandomGenerator rd, int count, double greedyProb, RateSchedule schedule) {
+        this.rd = rd;
+        this.count = count;
+        this.greedyProb = greedyProb;
+        this.trace = null;
+        this.serviceTimes = null;
+        this.schedule = schedule;
+        this.nextId = 1;
+        this.nextTime = 0;
+        if (schedule != null) {
+            skipClosed();
+        }
+    }
+
+    /**
+     * Creates an ArrivalSource that replays recorded Customers.
+     * @param trace ArrivalTrace to read Customers from.
+     * @param serviceTimes ServiceTimes to record the service time of each Customer in.
+     */
+    ArrivalSource(ArrivalTrace trace, ServiceTimes serviceTimes) {
+        this.rd = null;
+        this.count = Integer.MAX_VALUE;
+        this.greedyProb = 0;
+        this.trace = trace;
+        this.serviceTimes = serviceTimes;
+        this.schedule = null;
+        this.nextId = 1;
+        this.recorded = trace.next();
+    }
+
+    /**
+     * Checks if there are Customers left to arrive.
+     * @return true if another Customer will arrive.
+     */
+    boolean hasNext() {
+        return trace == null ? nextId <= count && nextTime < Double.POSITIVE_INFINITY : recorded;
+    }
+
+    /**
+     * Generates the next arriving Customer and adds his ARRIVED Event to an EventQueue.
+     * @param events EventQueue of pending Events.
+     */
+    void addNext(EventQueue events) {
+        if (trace != null) {
+            events.add(trace.getTime(), nextId, trace.isGreedy(), Status.ARRIVED, null);
+            serviceTimes.put(nextId, trace.getServiceTime());
+            nextId++;
+            recorded = trace.next();
+            return;
+        }
+        double greedy = rd.genCustomerType();
+        boolean isGreedy = greedy < greedyProb;
+        events.add(nextTime, nextId, isGreedy, Status.ARRIVED, null);
+        nextId++;
+        nextTime += rd.genInterArrivalTime();
+        if (schedule != null) {
+            thin();
+        }
+    }
+
+    /**
+     * Moves nextTime forward from a candidate arrival to the first one that is kept.
+     * Candidates come at the largest rate of the schedule, and each is kept with
+     * probability rate / largest rate.
+     */
+    private void thin() {
+        while (true) {
+            if (skipClosed()) {
+                //the next candidate comes one inter-arrival time after the reopening, not at it
+                nextTime += rd.genInterArrivalTime();
+            } else if (nextTime == Double.POSITIVE_INFINITY
+                    || rd.genThinning() * schedule.getMaxRate() < schedule.getRate(segment)) {
+                return;
+            } else {
+                nextTime += rd.genInterArrivalTime();
+            }
+        }
+    }
+
+    /**
+     * Moves nextTime past segments with rate 0, to infinity if the schedule ends with one.
+     * Candidates are memoryless, so restarting them where the next segment starts
+     * does not change the arrival process.
+     * @return true if nextTime was moved to the start of a segment with a positive rate.
+     */
+    private boolean skipClosed() {
+        segment = schedule.segment(nextTime, segment);
+        boolean moved = false;
+        while (schedule.getRate(segment) == 0) {
+            if (segment + 1 == schedule.getSegments()) {
+                nextTime = Double.POSITIVE_INFINITY;
+                return false;
+            }
+            segment++;
+            nextTime = schedule.getStart(segment);
+            moved = true;
+        }
+        return moved;
+    }
+
+    /**
+     * Changes the probability of generating a greedy Customer, e.g. for a variant of a Fork.
+     * @param greedyProb Probability of generating a greedy Customer.
+     */
+    void setGreedyProb(double greedyProb) {
+        this.greedyProb = greedyProb;
+    }
+
+    /**
+     * Writes the Id and arrival time of the next Customer.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(nextId);
+        out.writeDouble(nextTime);
+    }
+
+    /**
+     * Restores the next Customer written by write.
+     * @param in DataInput to read from.
+     * @throws IOException if reading fails.
+     */
+    void read(DataInput in) throws IOException {
+        nextId = in.readInt();
+        nextTime = in.readDouble();
+        if (schedule != null) {
+            segment = schedule.segment(nextTime, 0);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package cs2030.simulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads recorded Customers, one at a time, in order of arrival.
+ * Each Customer has an arrival time, a service time and optionally a type.
+ * Two formats are read, and told apart by the magic number of the binary format:
+ * a CSV file with one line "arrival,service[,greedy]" per Customer, where greedy is 1 or true
+ * and a first line that does not start with a number is skipped as a header; or a binary file
+ * with an 8 byte header (magic number and version) followed by one 17 byte little-endian
+ * record per Customer: arrival time (double), service time (double) and flags (byte, bit 0
+ * greedy Customer). The CSV file is read through a buffer and the binary file is
+ * memory-mapped chunk by chunk, so files larger than memory can be replayed.
+ * convert turns a CSV file into the faster binary format.
+ */
+public class ArrivalTrace {
+    static final int MAGIC = 0x44455341;
+    static final int VERSION = 1;
+    static final int HEADER = 8;
+    static final int RECORD = 17;
+    static final int GREEDY = 1;
+    //a whole number of records per chunk, so no record is split across two mappings
+    static final long CHUNK = RECORD * (1L << 20);
+    private static final int BUFFER = 1 << 16;
+
+    private final Path path;
+    private BufferedReader csv;
+    private FileChannel channel;
+    private long end;
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private long line;
+
+    private double time;
+    private double serviceTime;
+    private boolean greedy;
+
+    /**
+     * Opens a CSV or binary file of recorded Customers.
+     * @param path File to read.
+     */
+    public ArrivalTrace(Path path) {
+        this.path = path;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() == HEADER && header.getInt() == MAGIC) {
+                if (header.getInt() != VERSION) {
+                    channel.close();
+                    throw new IllegalArgumentException(path + " has an unknown version");
+                }
+                end = channel.size();
+                chunkStart = HEADER;
+                chunk = map(chunkStart);
+            } else {
+                channel.close();
+                channel = null;
+                csv = new BufferedReader(new InputStreamReader(Files.newInputStream(path),
+                    StandardCharsets.US_ASCII), BUFFER);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Moves to the next Customer.
+     * @return true if there was another Customer, false at the end of the file.
+     */
+    public boolean next() {
+        double last = time;
+        boolean found = csv == null ? nextRecord() : nextLine();
+        if (found && time < last) {
+            throw new IllegalArgumentException(path + " is not in order of arrival at " 
+                + (csv == null ? "time " + time : "line " + line));
+        }
+        return found;
+    }
+
+    /**
+     * Gets the arrival time of the current Customer.
+     * @return Arrival time.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Gets the service time of the current Customer.
+     * @return Service time.
+     */
+    public double getServiceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * Checks if the current Customer is a GreedyCustomer.
+     * @return true if the Customer is greedy.
+     */
+    public boolean isGreedy() {
+        return greedy;
+    }
+
+    /**
+     * Closes the file.
+     */
+    public void close() {
+        try {
+            if (csv != null) {
+                csv.close();
+            } else {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the next binary record.
+     */
+    private boolean nextRecord() {
+        if (chunk.remaining() < RECORD) {
+            if (chunkStart + chunk.capacity() >= end) {
+                return false;
+            }
+            chunkStart += chunk.capacity();
+            chunk = map(chunkStart);
+            if (chunk.remaining() < RECORD) {
+                return false;
+            }
+        }
+        time = chunk.getDouble();
+        serviceTime = chunk.getDouble();
+        greedy = (chunk.get() & GREEDY) != 0;
+        return true;
+    }
+
+    /**
+     * Reads the next CSV line that holds a Customer.
+     */
+    private boolean nextLine() {
+        try {
+            for (String s = csv.readLine(); s != null; s = csv.readLine()) {
+                line++;
+                s = s.trim();
+                if (s.isEmpty()) {
+                    continue;
+                }
+                if (line == 1 && !Character.isDigit(s.charAt(0)) && s.charAt(0) != '.') {
+                    continue;
+                }
+                int comma = s.indexOf(',');
+                if (comma == -1) {
+                    throw new IllegalArgumentException(path + " has no service time at line "
+                        + line);
+                }
+                int next = s.indexOf(',', comma + 1);
+                time = Double.parseDouble(s.substring(0, comma).trim());
+                serviceTime = Double.parseDouble(
+                    s.substring(comma + 1, next == -1 ? s.length() : next).trim());
+                String type = next == -1 ? "" : s.substring(next + 1).trim();
+                greedy = type.equals("1") || type.equalsIgnoreCase("true");
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer map(long position) {
+        try {
+            long size = Math.min(CHUNK, end - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Converts a file of recorded Customers to the binary format.
+     * @param from CSV or binary file to read.
+     * @param to File to write, replaced if it exists.
+     * @return Number of Customers written.
+     */
+    public static long convert(Path from, Path to) {
+        ArrivalTrace trace = new ArrivalTrace(from);
+        long records = 0;
+        try (FileChannel out = FileChannel.open(to, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD * (BUFFER / RECORD))
+                .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            while (trace.next()) {
+                if (buffer.remaining() < RECORD) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.putDouble(trace.time).putDouble(trace.serviceTime)
+                    .put((byte) (trace.greedy ? GREEDY : 0));
+                records++;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            trace.close();
+        }
+        return records;
+    }
+
+    /**
+     * Converts a CSV file of recorded Customers to the binary format.
+     * @param args Paths of the CSV file and the binary file to write.
+     */
+    public static void main(String[] args) {
+        long records = convert(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println(records + " customers");
+    }
+}
@@ -0,0 +1,134 @@
+package cs2030.simulator;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An EventSink that hands Events in batches to a writer thread, which logs them
+ * to another EventSink. The simulation thread only copies Events into a batch,
+ * so formatting and writing happen off the event loop.
+ * Batches are recycled, so logging does not allocate any objects.
+ * If the EventSink written to fails, the writer thread discards later Events, and the
+ * failure is thrown from the next log or flush.
+ */
+public class AsyncSink implements EventSink {
+    private static final int BATCHES = 4;
+    private static final int BATCH_SIZE = 4096;
+
+    private final EventSink out;
+    private final BlockingQueue<EventBatch> full;
+    private final BlockingQueue<EventBatch> free;
+    private final Thread writer;
+    private EventBatch curr;
+    //first failure of the EventSink written to, set by the writer thread
+    private volatile Throwable failure;
+
+    /**
+     * Creates an AsyncSink and starts its writer thread.
+     * @param out EventSink the writer thread logs Events to, e.g. a TextSink.
+     */
+    public AsyncSink(EventSink out) {
+        this.out = out;
+        full = new ArrayBlockingQueue<>(BATCHES);
+        free = new ArrayBlockingQueue<>(BATCHES);
+        for (int i = 1; i < BATCHES; i++) {
+            free.add(new EventBatch(BATCH_SIZE));
+        }
+        curr = new EventBatch(BATCH_SIZE);
+        writer = new Thread(this::write, "event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void log(double time, int id, boolean greedy, Status status, 
+            int serverId, boolean selfCheck) {
+        if (curr.add(time, id, greedy, status, serverId, selfCheck)) {
+            submit();
+        }
+    }
+
+    /**
+     * Waits for the writer thread to log every Event so far, then flushes the EventSink
+     * it writes to.
+     * @throws IllegalStateException if the EventSink written to failed.
+     */
+    @Override
+    public void flush() {
+        if (curr.size() > 0) {
+            submit();
+        }
+        try {
+            //every batch but the current one is free once the writer thread is idle
+            EventBatch[] idle = new EventBatch[BATCHES - 1];
+            for (int i = 0; i < idle.length; i++) {
+                idle[i] = free.take();
+            }
+            for (EventBatch batch : idle) {
+                free.add(batch);
+            }
+            checkFailure();
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while flushing events", e);
+        }
+    }
+
+    /**
+     * Flushes all Events and stops the writer thread.
+     */
+    public void close() {
+        flush();
+        writer.interrupt();
+    }
+
+    /**
+     * Hands the current batch to the writer thread and takes a free one.
+     * @throws IllegalStateException if the EventSink written to failed.
+     */
+    private void submit() {
+        try {
+            full.put(curr);
+            curr = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while logging events", e);
+        }
+        checkFailure();
+    }
+
+    /**
+     * Throws the failure of the EventSink written to, if there was one.
+     * @throws IllegalStateException if the EventSink written to failed.
+     */
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("writing events failed", failure);
+        }
+    }
+
+    /**
+     * Logs batches as they arrive until the writer thread is interrupted.
+     * After the EventSink fails, batches are only emptied, so that logging never blocks.
+     */
+    private void write() {
+        try {
+            while (true) {
+                EventBatch batch = full.take();
+                try {
+                    if (failure == null) {
+                        batch.drainTo(out);
+                    }
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                } finally {
+                    batch.clear();
+                    free.add(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            //closed
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package cs2030.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many scenarios from one input in a single JVM, so JVM start-up and JIT warm-up
+ * are paid once. A scenario is the ten numbers read by Main, in the same order:
+ * seed, servers, self-checkout counters, limit, count, lambda, mu, rho, prob and greedyProb.
+ * Numbers are separated by any whitespace, and a # starts a comment up to the end of the line.
+ * The input is parsed as a stream of bytes, one scenario at a time, so it can be of any length.
+ * Scenarios run without a trace over a pool of worker threads, and the summary line of each,
+ * as printed by Main, is written in input order.
+ * Usage: java cs2030.simulator.Batch [file, or - for standard input] [threads]
+ */
+public class Batch {
+    static final int SEED = 0;
+    static final int SERVERS = 1;
+    static final int SELF_CHECK = 2;
+    static final int LIMIT = 3;
+    static final int COUNT = 4;
+    static final int LAMBDA = 5;
+    static final int MU = 6;
+    static final int RHO = 7;
+    static final int PROB = 8;
+    static final int GREEDY_PROB = 9;
+    private static final int FIELDS = 10;
+    //scenarios submitted ahead of the oldest unfinished one, per worker thread
+    private static final int WINDOW = 16;
+
+    private final InputStream in;
+    private final char[] token = new char[64];
+    private int scenarios;
+
+    /**
+     * Creates a Batch that reads scenarios from an InputStream.
+     * @param in InputStream of scenarios.
+     */
+    public Batch(InputStream in) {
+        this.in = new BufferedInputStream(in, 1 << 16);
+    }
+
+    /**
+     * Reads the next scenario.
+     * @return The ten numbers of the scenario, indexed as SEED to GREEDY_PROB,
+     *     null at the end of the input.
+     * @throws IllegalArgumentException if the input ends in the middle of a scenario
+     *     or holds something other than a number.
+     */
+    public double[] next() {
+        double[] scenario = new double[FIELDS];
+        for (int i = 0; i < FIELDS; i++) {
+            int length = nextToken();
+            if (length == 0) {
+                if (i == 0) {
+                    return null;
+                }
+                throw new IllegalArgumentException("scenario " + (scenarios + 1) 
+                    + " has only " + i + " numbers");
+            }
+            String s = new String(token, 0, length);
+            try {
+                scenario[i] = Double.parseDouble(s);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("scenario " + (scenarios + 1) 
+                    + " has " + s + " instead of a number");
+            }
+        }
+        scenarios++;
+        return scenario;
+    }
+
+    /**
+     * Runs every remaining scenario and writes its summary line.
+     * @param out PrintStream to write summary lines to, in input order.
+     * @param threads Number of worker threads.
+     * @return Number of scenarios run.
+     */
+    public int run(PrintStream out, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        int done = 0;
+        try {
+            for (double[] s = next(); s != null; s = next()) {
+                double[] scenario = s;
+                pending.add(pool.submit(() -> summary(simulate(scenario, new NullSink()))));
+                if (pending.size() >= threads * WINDOW) {
+                    out.println(pending.remove().get());
+                    done++;
+                }
+            }
+            while (!pending.isEmpty()) {
+                out.println(pending.remove().get());
+                done++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while running scenarios", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("scenario " + (done + 1) + " failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return done;
+    }
+
+    /**
+     * Simulates a scenario.
+     * @param scenario The ten numbers of the scenario.
+     * @param sink EventSink to log the trace to.
+     * @return Metrics of the run.
+     */
+    public static Metrics simulate(double[] scenario, EventSink sink) {
+        Simulator sim = new Simulator((int) scenario[SERVERS], (int) scenario[SELF_CHECK]);
+        sim.setEventSink(sink);
+        sim.serve((int) scenario[COUNT], (int) scenario[LIMIT], (int) scenario[SEED],
+            scenario[LAMBDA], scenario[MU], scenario[RHO], scenario[PROB], 
+            scenario[GREEDY_PROB]);
+        return sim.getMetrics();
+    }
+
+    /**
+     * Formats the result of a scenario as the average waiting time, the number of
+     * Customers served and the number who left.
+     * @param metrics Result of simulate.
+     * @return Summary line, e.g. [0.123 8 2].
+     */
+    public static String summary(Metrics metrics) {
+        long left = metrics.getLeft();
+        long served = metrics.getServed();
+        double avgWaitingTime = served == 0 ? 0.000 : metrics.getTotalWaitingTime() / served;
+        return String.format("[%.3f %d %d]", avgWaitingTime, served, left);
+    }
+
+    /**
+     * Reads the next number into token, skipping whitespace and comments.
+     * @return Length of the number, 0 at the end of the input.
+     */
+    private int nextToken() {
+        try {
+            int c = in.read();
+            while (c != -1 && (Character.isWhitespace(c) || c == '#')) {
+                if (c == '#') {
+                    while (c != -1 && c != '\n') {
+                        c = in.read();
+                    }
+                } else {
+                    c = in.read();
+                }
+            }
+            int length = 0;
+            while (c != -1 && !Character.isWhitespace(c) && c != '#') {
+                if (length == token.length) {
+                    throw new IllegalArgumentException("scenario " + (scenarios + 1) 
+                        + " has a number starting " + new String(token) + " that is too long");
+                }
+                token[length++] = (char) c;
+                c = in.read();
+            }
+            if (c == '#') {
+                while (c != -1 && c != '\n') {
+                    c = in.read();
+                }
+            }
+            return length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs every scenario in a file or standard input and prints their summary lines.
+     * @param args Path of the file, or - for standard input, and the number of threads.
+     */
+    public static void main(String[] args) {
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) 
+            : Runtime.getRuntime().availableProcessors();
+        try (InputStream in = args.length == 0 || args[0].equals("-") ? System.in
+                : Files.newInputStream(Paths.get(args[0]))) {
+            PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16));
+            new Batch(in).run(out, threads);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
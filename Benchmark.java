@@ -0,0 +1,448 @@
+package cs2030.simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A smoke timer and self-checks for the event loop and the data structures behind it.
+ * This is not a benchmark harness: it keeps no per-iteration statistics, and its numbers are
+ * not comparable with those of the JMH benchmarks in src/jmh, which are run with gradle jmh.
+ * Use it for a quick look without a build, and for the scale and resume checks.
+ * Every benchmark is run for a number of warm-up iterations, whose results are discarded,
+ * then for a number of measured iterations. For each it reports the average time per
+ * operation, operations per second and bytes allocated per operation.
+ * Traces are logged to a NullSink, so console output is not measured.
+ * Every benchmark runs in a JVM of its own, so that the JIT compiles it only from its own
+ * profile: in a shared JVM, e.g. the EventQueue call sites of the Simulator would see both
+ * implementations and be slower for whichever was measured second.
+ * The scale check is not part of all: it runs one large store and fails unless the peak heap
+ * stays under 256 MB and at least a million Events are handled per second.
+ * The resume check is not part of all either: it resumes Forks of a store with one
+ * self-checkout counter on stores with more, and fails if any Customer is served out of turn.
+ * The overlap suite counts how many logged Events share a time with the previous one, and how
+ * many of those involve another Customer and another Server, i.e. could run in parallel.
+ * Usage: java cs2030.simulator.Benchmark [serve|queue|route|overlap|all|scale|resume]
+ *     [power of 10]
+ */
+public class Benchmark {
+    private static final int WARMUP = 3;
+    private static final int MEASURE = 5;
+    private static final int SCALE_SERVERS = 10000;
+    private static final long SCALE_MAX_HEAP = 256L << 20;
+    private static final double SCALE_MIN_EVENTS_PER_SECOND = 1e6;
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    /**
+     * Result of every benchmark body, kept so that the JIT cannot remove the work.
+     */
+    private static volatile long blackhole;
+
+    /**
+     * A benchmark body, run once per iteration.
+     */
+    private interface Body {
+
+        /**
+         * Runs one iteration.
+         * @return Number of operations performed.
+         */
+        long run();
+    }
+
+    /**
+     * Runs the selected benchmarks.
+     * @param args Name of the benchmark suite, and the largest power of 10 of Customers
+     *     for the serve benchmark, or the power of 10 of Customers for the scale check.
+     * @throws IOException if a benchmark JVM cannot be started.
+     * @throws InterruptedException if interrupted while waiting for a benchmark JVM.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String suite = args.length > 0 ? args[0] : "all";
+        if (suite.equals("fork")) {
+            //run in a JVM started by fork
+            String name = args[1];
+            int param = Integer.parseInt(args[2]);
+            measure(name, param, body(name, param));
+            return;
+        }
+        if (suite.equals("scale")) {
+            int power = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+            if (!checkScale((int) Math.pow(10, power))) {
+                System.exit(1);
+            }
+            return;
+        }
+        if (suite.equals("resume")) {
+            if (!checkResume()) {
+                System.exit(1);
+            }
+            return;
+        }
+        int maxPower = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        System.out.println(String.format("%-32s %10s %14s %14s %10s",
+            "benchmark", "param", "ns/op", "ops/s", "B/op"));
+        if (suite.equals("serve") || suite.equals("all")) {
+            benchmarkServe(maxPower);
+        }
+        if (suite.equals("queue") || suite.equals("all")) {
+            benchmarkQueues();
+        }
+        if (suite.equals("route") || suite.equals("all")) {
+            benchmarkRouting();
+        }
+        if (suite.equals("overlap") || suite.equals("all")) {
+            countOverlap();
+        }
+    }
+
+    /**
+     * Measures end-to-end serve throughput for increasing numbers of Customers.
+     * @param maxPower Largest power of 10 of Customers.
+     * @throws IOException if a benchmark JVM cannot be started.
+     * @throws InterruptedException if interrupted while waiting for a benchmark JVM.
+     */
+    private static void benchmarkServe(int maxPower) throws IOException, InterruptedException {
+        for (int power = 4; power <= maxPower; power++) {
+            int count = (int) Math.pow(10, power);
+            fork("serve.contractQueue", count);
+            fork("serve.eventHeap", count);
+        }
+    }
+
+    /**
+     * Creates the body of a serve benchmark, where one operation is one Event.
+     * @param primitive true to use the EventHeap, false to use the ContractQueue.
+     * @param count Number of Customers.
+     * @return Benchmark body.
+     */
+    private static Body serveBody(boolean primitive, int count) {
+        return () -> {
+            Simulator sim = new Simulator(10, 5);
+            sim.setEventSink(new NullSink());
+            sim.setPrimitiveEvents(primitive);
+            sim.serve(count, 5, 1, 14.0, 1.0, 0.5, 0.3, 0.5);
+            return sim.getMetrics().getEvents();
+        };
+    }
+
+    /**
+     * Counts the logged Events that share a time with the previous one in stores of
+     * increasing size at 95% load.
+     */
+    private static void countOverlap() {
+        for (int servers : new int[]{10, 100, 1000}) {
+            long[] counts = new long[3];
+            EventSink sink = new EventSink() {
+                private double lastTime = -1;
+                private int lastId;
+                private int lastServer;
+
+                @Override
+                public void log(double time, int id, boolean greedy, Status status,
+                        int serverId, boolean selfCheck) {
+                    counts[0]++;
+                    if (time == lastTime) {
+                        counts[1]++;
+                        if (id != lastId && serverId != lastServer) {
+                            counts[2]++;
+                        }
+                    }
+                    lastTime = time;
+                    lastId = id;
+                    lastServer = serverId;
+                }
+
+                @Override
+                public void flush() {
+                }
+            };
+            Simulator sim = new Simulator(servers, servers / 10);
+            sim.setEventSink(sink);
+            sim.serve(1000000, 3, 1, servers * 1.05, 1.0, 0.5, 0.1, 0.3);
+            System.out.println(String.format("%-32s %10d %14d logged %8.1f%% same time "
+                + "%8d independent", "overlap", servers, counts[0], 100.0 * counts[1] / counts[0],
+                counts[2]));
+        }
+    }
+
+    /**
+     * Runs one store with 10,000 Servers at 95% load and checks its peak heap usage
+     * and Event rate.
+     * @param count Number of Customers.
+     * @return true if both are within bounds.
+     */
+    private static boolean checkScale(int count) {
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heap.add(pool);
+            }
+        }
+        System.gc();
+        for (MemoryPoolMXBean pool : heap) {
+            pool.resetPeakUsage();
+        }
+        Simulator sim = new Simulator(SCALE_SERVERS);
+        sim.setEventSink(new NullSink());
+        sim.setCompatibleRandom(false);
+        sim.serve(count, 2, 1, SCALE_SERVERS * 0.95, 1.0, 0.5, 0.1, 0.5);
+        //the sum of the peaks of every pool is at least the peak of the whole heap
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heap) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        double rate = sim.getMetrics().getEventsPerSecond();
+        boolean pass = peak < SCALE_MAX_HEAP && rate >= SCALE_MIN_EVENTS_PER_SECOND;
+        System.out.println(String.format("scale: %d servers, %d customers, %d events, "
+            + "peak heap %.1f MB, %.0f events/s: %s", SCALE_SERVERS, count,
+            sim.getMetrics().getEvents(), peak / 1048576.0, rate, pass ? "PASS" : "FAIL"));
+        return pass;
+    }
+
+    /**
+     * Forks a store with one self-checkout counter and a full queue, and resumes it on stores
+     * with 2 to 4 counters. All counters share one queue and no Customer is greedy, so
+     * Customers must be served in order of Id: the extra counters take the waiting Customers
+     * before any new arrival.
+     * @return true if every variant served its Customers in order.
+     */
+    private static boolean checkResume() {
+        long outOfTurn = 0;
+        for (int seed = 1; seed <= 100; seed++) {
+            Simulator forked = new Simulator(0, 1);
+            forked.setEventSink(new NullSink());
+            Fork fork = forked.fork(50, 1000, 10, seed, 3.0, 1.0, 0.5, 0, 0);
+            for (int selfCheck = 2; selfCheck <= 4; selfCheck++) {
+                long[] counts = new long[2];
+                Simulator variant = new Simulator(0, selfCheck);
+                variant.setEventSink(new EventSink() {
+                    @Override
+                    public void log(double time, int id, boolean greedy, Status status,
+                            int serverId, boolean selfCheck) {
+                        if (status == Status.SERVED) {
+                            //counts[1] is the Id served last
+                            counts[0] += id < counts[1] ? 1 : 0;
+                            counts[1] = Math.max(counts[1], id);
+                        }
+                    }
+
+                    @Override
+                    public void flush() {
+                    }
+                });
+                variant.resume(fork, 10, 0, 0);
+                outOfTurn += counts[0];
+            }
+        }
+        boolean pass = outOfTurn == 0;
+        System.out.println(String.format("resume: 300 variants, %d Customers served out of turn: "
+            + "%s", outOfTurn, pass ? "PASS" : "FAIL"));
+        return pass;
+    }
+
+    /**
+     * Measures the EventQueues for different queue sizes.
+     * @throws IOException if a benchmark JVM cannot be started.
+     * @throws InterruptedException if interrupted while waiting for a benchmark JVM.
+     */
+    private static void benchmarkQueues() throws IOException, InterruptedException {
+        for (int size : new int[]{16, 1024, 65536}) {
+            fork("queue.contractQueue", size);
+            fork("queue.eventHeap", size);
+        }
+    }
+
+    /**
+     * Creates the body of an EventQueue benchmark with the hold model: the queue is kept
+     * at a fixed size while the earliest Event is repeatedly polled and replaced by a later
+     * one. One operation is one poll and one add.
+     * @param primitive true to use the EventHeap, false to use the ContractQueue.
+     * @param size Number of Events in the queue.
+     * @return Benchmark body.
+     */
+    private static Body queueBody(boolean primitive, int size) {
+        double[] delays = new double[1 << 16];
+        Random random = new Random(1);
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = -Math.log(random.nextDouble());
+        }
+        Server server = new Server(1);
+        int operations = 1 << 20;
+        return () -> {
+            EventQueue events = primitive ? new EventHeap() : new ContractQueue();
+            for (int i = 0; i < size; i++) {
+                events.add(delays[i & (delays.length - 1)], i + 1, false,
+                    Status.SERVED, server);
+            }
+            long sum = 0;
+            for (int i = 0; i < operations; i++) {
+                events.poll();
+                sum += events.getID();
+                events.add(events.getTime() + delays[i & (delays.length - 1)],
+                    events.getID(), false, Status.SERVED, server);
+            }
+            blackhole = sum;
+            return operations;
+        };
+    }
+
+    /**
+     * Measures Server selection and RoutingPolicies for different numbers of Servers.
+     * @throws IOException if a benchmark JVM cannot be started.
+     * @throws InterruptedException if interrupted while waiting for a benchmark JVM.
+     */
+    private static void benchmarkRouting() throws IOException, InterruptedException {
+        String[] names = {"route.findServer", "route.customerFindServer",
+            "route.greedyFindServer", "route.powerOfTwo", "route.idleQueue"};
+        for (int servers : new int[]{10, 100, 1000, 10000}) {
+            for (String name : names) {
+                fork(name, servers);
+            }
+        }
+    }
+
+    /**
+     * Creates the body of a routing benchmark, where one operation is one queue length
+     * update followed by one query.
+     * @param name Name of the benchmark.
+     * @param servers Number of Servers.
+     * @return Benchmark body.
+     */
+    private static Body routeBody(String name, int servers) {
+        int operations = 1 << 20;
+        ServerIndex index = new ServerIndex(servers, servers);
+        List<Server> serverList = new ArrayList<>();
+        for (int i = 1; i <= servers; i++) {
+            serverList.add(new Server(i));
+            index.setNextTime(i, 1);
+        }
+        index.setRun(new RandomGenerator(1, 1, 1, 1, false), 1);
+        int[] picks = new Random(1).ints(operations, 1, servers + 1).toArray();
+        if (name.equals("route.findServer")) {
+            return () -> {
+                long sum = 0;
+                for (int i = 0; i < operations; i++) {
+                    index.setNextTime(picks[i], i & 1);
+                    sum += index.findIdle(0.5);
+                }
+                blackhole = sum;
+                return operations;
+            };
+        }
+        if (name.endsWith("FindServer")) {
+            Customer c = name.equals("route.greedyFindServer")
+                ? new GreedyCustomer(1, Status.ARRIVED, 0) : new Customer(1, Status.ARRIVED, 0);
+            return () -> {
+                long sum = 0;
+                for (int i = 0; i < operations; i++) {
+                    index.setQueueLength(picks[i], i % 3);
+                    Server s = c.findServer(serverList, index, 2);
+                    sum += s == null ? 0 : s.getID();
+                }
+                blackhole = sum;
+                return operations;
+            };
+        }
+        RoutingPolicy policy = name.equals("route.powerOfTwo")
+            ? RoutingPolicy.POWER_OF_TWO : RoutingPolicy.IDLE_QUEUE;
+        return () -> {
+            long sum = 0;
+            for (int i = 0; i < operations; i++) {
+                index.setQueueLength(picks[i], i % 3);
+                sum += policy.route(index, 2, 0);
+            }
+            blackhole = sum;
+            return operations;
+        };
+    }
+
+    /**
+     * Creates the body of a benchmark.
+     * @param name Name of the benchmark.
+     * @param param Parameter of the benchmark, e.g. the number of Customers.
+     * @return Benchmark body.
+     */
+    private static Body body(String name, int param) {
+        switch (name) {
+            case "serve.contractQueue":
+            case "serve.eventHeap":
+                return serveBody(name.endsWith("eventHeap"), param);
+            case "queue.contractQueue":
+            case "queue.eventHeap":
+                return queueBody(name.endsWith("eventHeap"), param);
+            case "route.findServer":
+            case "route.customerFindServer":
+            case "route.greedyFindServer":
+            case "route.powerOfTwo":
+            case "route.idleQueue":
+                return routeBody(name, param);
+            default:
+                throw new IllegalArgumentException("unknown benchmark " + name);
+        }
+    }
+
+    /**
+     * Runs a benchmark in a new JVM with the same class path, which prints its result.
+     * @param name Name of the benchmark.
+     * @param param Parameter of the benchmark, e.g. the number of Customers.
+     * @throws IOException if the JVM cannot be started.
+     * @throws InterruptedException if interrupted while waiting for the JVM.
+     */
+    private static void fork(String name, int param) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin"
+            + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+            Benchmark.class.getName(), "fork", name, Integer.toString(param))
+            .inheritIO()
+            .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException(name + " failed in its JVM");
+        }
+    }
+
+    /**
+     * Runs a benchmark and prints its average time and allocation per operation.
+     * @param name Name of the benchmark.
+     * @param param Parameter of the benchmark, e.g. the number of Customers.
+     * @param body Benchmark body.
+     */
+    private static void measure(String name, int param, Body body) {
+        for (int i = 0; i < WARMUP; i++) {
+            body.run();
+        }
+        long operations = 0;
+        long nanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < MEASURE; i++) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            operations += body.run();
+            nanos += System.nanoTime() - start;
+            bytes += allocatedBytes() - allocated;
+        }
+        double nanosPerOp = (double) nanos / operations;
+        System.out.println(String.format("%-32s %10d %14.2f %14.0f %10.1f", name, param,
+            nanosPerOp, 1e9 / nanosPerOp, (double) bytes / operations));
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     * @return Allocated bytes, 0 if the JVM cannot measure them.
+     */
+    private static long allocatedBytes() {
+        long thread = Thread.currentThread().getId();
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(thread);
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean
+            ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+}
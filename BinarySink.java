@@ -0,0 +1,117 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An EventSink that writes the simulation trace to a file as fixed-width binary records.
+ * The file starts with a 16 byte header (magic number, version and number of records),
+ * followed by one 18 byte little-endian record per Event: time (double), Customer Id (int),
+ * Server Id (int), Status code (byte) and flags (byte, bit 0 greedy Customer, bit 1
+ * self-checkout counter). Records are written into memory-mapped chunks of the file, so the
+ * file may end in unused space until it is closed. The number of records in the header is
+ * updated on every flush, and a TraceReader reads back only that many.
+ */
+public class BinarySink implements EventSink {
+    static final int MAGIC = 0x44455354;
+    static final int VERSION = 2;
+    static final int HEADER = 16;
+    //position of the number of records in the header
+    static final int COUNT = 8;
+    static final int RECORD = 18;
+    static final int GREEDY = 1;
+    static final int SELF_CHECK = 2;
+    //a whole number of records per chunk, so no record is split across two mappings
+    static final long CHUNK = RECORD * (1L << 20);
+
+    private final FileChannel channel;
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private long records;
+
+    /**
+     * Creates a BinarySink that writes to a file, replacing it if it exists.
+     * @param path File to write the trace to.
+     */
+    public BinarySink(Path path) {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, 
+                StandardOpenOption.READ, StandardOpenOption.WRITE, 
+                StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(0).flip();
+            channel.write(header, 0);
+            chunkStart = HEADER;
+            chunk = map(chunkStart);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void log(double time, int id, boolean greedy, Status status, 
+            int serverId, boolean selfCheck) {
+        if (!chunk.hasRemaining()) {
+            chunkStart += CHUNK;
+            chunk = map(chunkStart);
+        }
+        chunk.putDouble(time);
+        chunk.putInt(id);
+        chunk.putInt(serverId);
+        chunk.put((byte) status.getCode());
+        chunk.put((byte) ((greedy ? GREEDY : 0) | (selfCheck ? SELF_CHECK : 0)));
+        records++;
+    }
+
+    /**
+     * Forces the records written so far to the file, then records their number in the header.
+     */
+    @Override
+    public void flush() {
+        chunk.force();
+        ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        count.putLong(records).flip();
+        try {
+            channel.write(count, COUNT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes all records, trims the unused end of the last chunk and closes the file.
+     */
+    public void close() {
+        flush();
+        try {
+            channel.truncate(HEADER + records * RECORD);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the number of records written so far.
+     * @return Number of records.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    private MappedByteBuffer map(long position) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, CHUNK);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
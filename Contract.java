@@ -7,6 +7,7 @@ class Contract {
     static final int BACK = 5;
     private final Server s;
     private final Customer c;
+    private final Status status;
     
     /**
      *Creates a Contract without a Server yet.
@@ -14,6 +15,7 @@ class Contract {
     Contract(Customer c) {
         this.s = null;
         this.c = c;
+        this.status = null;
     }
     
     /**
@@ -22,14 +24,23 @@ class Contract {
     Contract(Customer c, Server s) {
         this.s = s;
         this.c = c;
+        this.status = null;
     }
     
     /**
      *Creates a Contract with a Server without a Customer yet.
      */
     Contract(Server s) {
+        this(s, Status.BACK);
+    }
+
+    /**
+     *Creates a Contract with a Server without a Customer, e.g. a Server closing or opening.
+     */
+    Contract(Server s, Status status) {
         this.s = s;
         this.c = null;
+        this.status = status;
     }
     
     /**
@@ -78,7 +89,7 @@ class Contract {
      */
     Status getStatus() {
         if (c == null) {
-            return Status.BACK;
+            return status;
         }
         return c.getStatus();
     }
@@ -0,0 +1,92 @@
+package cs2030.simulator;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.PriorityQueue;
+
+/**
+ * An EventQueue that stores each Event as a Contract in a PriorityQueue
+ * ordered by ContractComparator.
+ */
+class ContractQueue implements EventQueue {
+    private final PriorityQueue<Contract> contracts;
+    private Contract curr;
+
+    /**
+     * Creates an empty ContractQueue.
+     */
+    ContractQueue() {
+        contracts = new PriorityQueue<>(1, new ContractComparator());
+    }
+
+    @Override
+    public void add(double time, int id, boolean greedy, Status status, Server server) {
+        if (id == -1) {
+            //a Contract without a Customer takes its time from the Server
+            contracts.add(new Contract(server.setNextTime(time), status));
+        } else {
+            contracts.add(new Contract(Customer.create(id, greedy, status, time), server));
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return contracts.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return contracts.size();
+    }
+
+    @Override
+    public double peekTime() {
+        return contracts.peek().getTime();
+    }
+
+    @Override
+    public void poll() {
+        curr = contracts.poll();
+    }
+
+    /**
+     * Writes every pending Event in the iteration order of the PriorityQueue,
+     * which is the order of its internal array.
+     */
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(contracts.size());
+        for (Contract c : contracts) {
+            out.writeDouble(c.getTime());
+            out.writeInt(c.getID());
+            out.writeBoolean(c.getCustomer() != null && c.getCustomer().isGreedy());
+            out.writeByte(c.getStatus().getCode());
+            out.writeInt(c.getServer() == null ? 0 : c.getServer().getID());
+        }
+    }
+
+    @Override
+    public double getTime() {
+        return curr.getTime();
+    }
+
+    @Override
+    public int getID() {
+        return curr.getID();
+    }
+
+    @Override
+    public boolean isGreedy() {
+        return curr.getCustomer() != null && curr.getCustomer().isGreedy();
+    }
+
+    @Override
+    public Status getStatus() {
+        return curr.getStatus();
+    }
+
+    @Override
+    public int getServerID() {
+        return curr.getServer() == null ? 0 : curr.getServer().getID();
+    }
+}
@@ -1,6 +1,5 @@
 package cs2030.simulator;
 
-import java.util.Map;
 import java.util.List;
 
 /**
@@ -12,6 +11,14 @@ class Customer {
     static final int WAIT = 1;
     static final int SERVED = 2;
     static final int DONE = 3;
+    /**
+     * Type tag of a Customer who joins the first queue that is not full.
+     */
+    static final byte NORMAL = 0;
+    /**
+     * Type tag of a GreedyCustomer.
+     */
+    static final byte GREEDY = 1;
     private final Status status;
     private final int id;
     private final double time;
@@ -19,8 +26,10 @@ class Customer {
     /**
      * Creates a Customer with an Id,status, time.
      * @param id Identification of Customer.
-     * @param status Status is his most recent activity, i.e. arrival, wait, serve, done or leave.
-     * @param time Time of his most recent activity, i.e. arrival, wait, serve, done or leave.
+     * @param status Status is his most recent activity, i.e. arrival, wait, serve, done, leave
+     *     or renege.
+     * @param time Time of his most recent activity, i.e. arrival, wait, serve, done, leave
+     *     or renege.
      */
     Customer(int id, Status status, double time) {
         this.id = id;
@@ -28,6 +37,27 @@ class Customer {
         this.time = time;
     }
 
+    /**
+     * Creates a Customer or a GreedyCustomer with an Id, status and time.
+     * @param id Identification of Customer.
+     * @param greedy true to create a GreedyCustomer.
+     * @param status Status is his most recent activity.
+     * @param time Time of his most recent activity.
+     * @return new Customer.
+     */
+    static Customer create(int id, boolean greedy, Status status, double time) {
+        return greedy ? new GreedyCustomer(id, status, time) : new Customer(id, status, time);
+    }
+
+    /**
+     * Gets the type tag of a Customer.
+     * @param greedy true if the Customer is a GreedyCustomer.
+     * @return GREEDY or NORMAL.
+     */
+    static byte tag(boolean greedy) {
+        return greedy ? GREEDY : NORMAL;
+    }
+
     /**
      *Sets status of Customer and time to nextStatus and nextTime.
      *@param nextStatus next Status of Customer.
@@ -54,20 +84,24 @@ class Customer {
         return id;
     }
 
+    /**
+     * Checks if this is a GreedyCustomer.
+     * @return false, since this Customer joins the first queue that is not full.
+     */
+    boolean isGreedy() {
+        return false;
+    }
+
     /**
      * Finds the first server whose queue is not full.
      * @param servers List of Servers.
-     * @param queue All queues in the store.
+     * @param index ServerIndex over all Servers and queues in the store.
      * @param limit Maximum queue length
      * @return First server whose queue is not full, null if all are full.
      */
-    Server findServer(List<Server> servers, Map<Integer, List<Customer>> queue, int limit) {
-        for (int i = 0; i < servers.size(); i++) {
-            if (queue.get(servers.get(i).getQueueId()).size() < limit) {
-                return servers.get(i);
-            }
-        }
-        return null;
+    Server findServer(List<Server> servers, ServerIndex index, int limit) {
+        int queueId = RoutingPolicy.FIRST_FIT.route(index, limit, time);
+        return queueId == -1 ? null : servers.get(queueId - 1);
     }
 
     /**
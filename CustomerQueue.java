@@ -0,0 +1,178 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A first-in first-out queue of waiting Customers, stored as a ring buffer.
+ * Each Customer is kept as his Id, arrival time and type in primitive arrays,
+ * so joining and leaving the queue does not allocate any objects.
+ * Every Customer who joins gets a ticket, the number of Customers who joined before him,
+ * which stays his slot in the buffer modulo its power-of-two capacity. A Customer who gives
+ * up is removed from the middle of the queue in O(1) time by marking his slot as gone,
+ * and gone slots are skipped when they reach the front.
+ */
+class CustomerQueue {
+    private int[] ids;
+    private double[] times;
+    private boolean[] greedy;
+    private boolean[] gone;
+    //ticket of the front slot and of the next Customer to join
+    private int head;
+    private int tail;
+    //number of Customers in the queue, not counting gone slots
+    private int size;
+
+    /**
+     * Creates an empty CustomerQueue.
+     * @param capacity Number of Customers the queue can hold before it has to grow,
+     *     normally the maximum queue length.
+     */
+    CustomerQueue(int capacity) {
+        capacity = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1);
+        ids = new int[capacity];
+        times = new double[capacity];
+        greedy = new boolean[capacity];
+        gone = new boolean[capacity];
+    }
+
+    /**
+     * Gets the number of Customers in the queue.
+     * @return Queue length.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a Customer to the back of the queue.
+     * @param id Id of Customer.
+     * @param time Time Customer joined the queue.
+     * @param isGreedy true if the Customer is a GreedyCustomer.
+     * @return Ticket of the Customer.
+     */
+    int add(int id, double time, boolean isGreedy) {
+        if (tail - head == ids.length) {
+            grow();
+        }
+        int slot = tail & (ids.length - 1);
+        ids[slot] = id;
+        times[slot] = time;
+        greedy[slot] = isGreedy;
+        gone[slot] = false;
+        size++;
+        return tail++;
+    }
+
+    /**
+     * Gets the Id of the Customer at the front of the queue.
+     * @return Id of Customer.
+     */
+    int peekID() {
+        return ids[head & (ids.length - 1)];
+    }
+
+    /**
+     * Gets the time the Customer at the front of the queue joined it.
+     * @return Time Customer joined the queue.
+     */
+    double peekTime() {
+        return times[head & (ids.length - 1)];
+    }
+
+    /**
+     * Checks if the Customer at the front of the queue is a GreedyCustomer.
+     * @return true if the Customer is greedy.
+     */
+    boolean peekGreedy() {
+        return greedy[head & (ids.length - 1)];
+    }
+
+    /**
+     * Gets the Id of the Customer holding a ticket.
+     * @param ticket Ticket of a Customer in the queue.
+     * @return Id of Customer.
+     */
+    int getID(int ticket) {
+        return ids[ticket & (ids.length - 1)];
+    }
+
+    /**
+     * Removes the Customer at the front of the queue.
+     */
+    void remove() {
+        head++;
+        size--;
+        //only look for gone slots if there are any
+        while (tail - head > size && gone[head & (ids.length - 1)]) {
+            head++;
+        }
+    }
+
+    /**
+     * Removes a Customer from anywhere in the queue.
+     * @param ticket Ticket of a Customer in the queue.
+     */
+    void remove(int ticket) {
+        if (ticket == head) {
+            remove();
+            return;
+        }
+        gone[ticket & (ids.length - 1)] = true;
+        size--;
+    }
+
+    /**
+     * Writes every Customer in the queue, front first.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int t = head; t != tail; t++) {
+            int j = t & (ids.length - 1);
+            if (!gone[j]) {
+                out.writeInt(ids[j]);
+                out.writeDouble(times[j]);
+                out.writeBoolean(greedy[j]);
+            }
+        }
+    }
+
+    /**
+     * Adds the Customers written by write to the back of the queue.
+     * @param in DataInput to read from.
+     * @throws IOException if reading fails.
+     */
+    void read(DataInput in) throws IOException {
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            add(in.readInt(), in.readDouble(), in.readBoolean());
+        }
+    }
+
+    /**
+     * Doubles the capacity of the queue, keeping every ticket in its slot modulo the
+     * new capacity.
+     */
+    private void grow() {
+        int capacity = ids.length * 2;
+        int[] newIds = new int[capacity];
+        double[] newTimes = new double[capacity];
+        boolean[] newGreedy = new boolean[capacity];
+        boolean[] newGone = new boolean[capacity];
+        for (int t = head; t != tail; t++) {
+            int j = t & (ids.length - 1);
+            int k = t & (capacity - 1);
+            newIds[k] = ids[j];
+            newTimes[k] = times[j];
+            newGreedy[k] = greedy[j];
+            newGone[k] = gone[j];
+        }
+        ids = newIds;
+        times = newTimes;
+        greedy = newGreedy;
+        gone = newGone;
+    }
+}
@@ -0,0 +1,156 @@
+package cs2030.simulator;
+
+/**
+ * Approximate steady-state results of a configuration from queueing formulas,
+ * in far less time than a simulation, to screen out configurations that are clearly
+ * over- or under-staffed.
+ * The self-checkout counters with their shared queue are one M/M/c/K queue with c counters
+ * and K = c + limit. Servers with their own queues are modelled twice: as separate M/M/1/K
+ * queues with K = limit + 1, which ignores that arrivals go to any idle Server first and
+ * overstates waiting, and as one pooled M/M/c/K queue with K = c * (limit + 1), which
+ * understates it. The estimated waiting time is the midpoint of the two, and the estimated
+ * probability of leaving is the larger one.
+ * A Server that rests with probability prob after each Customer is treated as serving
+ * at the rate 1 / (1 / mu + prob / rho). Arrivals are split between the queues in
+ * proportion to their service rates, and a Customer leaves only if every queue is full,
+ * taken to be the product of their blocking probabilities; the throughputs and the
+ * probability of leaving are solved as a fixed point.
+ * Greedy Customers, reneging, schedules and closures are not modelled, and first-fit routing
+ * into long queues can make Customers wait noticeably longer than estimated.
+ */
+public class Estimator {
+    private static final double TOLERANCE = 1e-10;
+
+    private final int servers;
+    private final int selfCheck;
+    private final double lambda;
+    private final double mu;
+    private final double rho;
+    private final double prob;
+    private final double serverRate;
+    //total service rate of all Servers and self-checkout counters
+    private final double capacity;
+    private final FiniteQueue lane;
+    private final FiniteQueue lanes;
+    private final FiniteQueue pool;
+    private final double balking;
+    private final double waitingTime;
+
+    /**
+     * Estimates the results of a configuration.
+     * @param servers Number of Servers.
+     * @param selfCheck Number of self-checkout counters.
+     * @param limit Maximum queue length.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param prob Resting probability.
+     */
+    public Estimator(int servers, int selfCheck, int limit, double lambda, double mu,
+            double rho, double prob) {
+        this.servers = servers;
+        this.selfCheck = selfCheck;
+        this.lambda = lambda;
+        this.mu = mu;
+        this.rho = rho;
+        this.prob = prob;
+        this.serverRate = prob > 0 ? 1 / (1 / mu + prob / rho) : mu;
+        this.capacity = servers * serverRate + selfCheck * mu;
+        this.lane = new FiniteQueue(1, limit, serverRate);
+        this.lanes = new FiniteQueue(Math.max(servers, 1), servers * limit, serverRate);
+        this.pool = new FiniteQueue(Math.max(selfCheck, 1), limit, mu);
+        double[] separate = solve(false);
+        double[] pooled = solve(true);
+        this.waitingTime = (separate[1] + pooled[1]) / 2;
+        this.balking = Math.max(separate[0], pooled[0]);
+    }
+
+    /**
+     * Finds the probability of leaving at which it equals the probability that every queue
+     * is full. More Customers leaving means less load and fewer full queues, so it is found
+     * by bisection.
+     * @return Probability of leaving and average waiting time.
+     */
+    private double[] solve(boolean pooled) {
+        double low = 0;
+        double high = 1;
+        while (high - low > TOLERANCE) {
+            double left = (low + high) / 2;
+            if (full(left, pooled) > left) {
+                low = left;
+            } else {
+                high = left;
+            }
+        }
+        full(high, pooled);
+        double accepted = lambda * (1 - high);
+        double waiting = (pooled ? lanes.getWaiting() : servers * lane.getWaiting())
+            + (selfCheck > 0 ? pool.getWaiting() : 0);
+        return new double[]{high, accepted > 0 ? waiting / accepted : 0};
+    }
+
+    /**
+     * Solves every queue for the throughputs when a fraction of Customers leaves.
+     * @return Probability that every queue is full.
+     */
+    private double full(double left, boolean pooled) {
+        if (capacity == 0) {
+            return 1;
+        }
+        double accepted = lambda * (1 - left);
+        double full = 1;
+        if (servers > 0 && pooled) {
+            lanes.carry(accepted * servers * serverRate / capacity);
+            full = lanes.getBlocking();
+        } else if (servers > 0) {
+            lane.carry(accepted * serverRate / capacity);
+            full = Math.pow(lane.getBlocking(), servers);
+        }
+        if (selfCheck > 0) {
+            pool.carry(accepted * selfCheck * mu / capacity);
+            full *= pool.getBlocking();
+        }
+        return full;
+    }
+
+    /**
+     * Gets the estimated average time served Customers spend waiting.
+     * @return Average waiting time.
+     */
+    public double getAverageWaitingTime() {
+        return waitingTime;
+    }
+
+    /**
+     * Gets the estimated fraction of Customers who leave because every queue is full.
+     * @return Probability of leaving.
+     */
+    public double getBalking() {
+        return balking;
+    }
+
+    /**
+     * Gets the estimated fraction of time a Server or self-checkout counter spends serving.
+     * @param isSelfCheck true for a self-checkout counter, false for a Server.
+     * @return Utilization.
+     */
+    public double getUtilization(boolean isSelfCheck) {
+        double accepted = lambda * (1 - balking);
+        if (accepted <= 0) {
+            return 0;
+        }
+        if (isSelfCheck) {
+            return selfCheck > 0 ? accepted / capacity : 0;
+        }
+        return accepted * serverRate / capacity / mu;
+    }
+
+    /**
+     * Gets the estimated fraction of time a Server spends resting.
+     * @return Resting fraction.
+     */
+    public double getRestFraction() {
+        return prob > 0 && capacity > 0 ? lambda * (1 - balking) * serverRate / capacity
+            * prob / rho : 0;
+    }
+}
@@ -0,0 +1,72 @@
+package cs2030.simulator;
+
+/**
+ * A fixed-size batch of logged Events, stored in parallel primitive arrays.
+ * Batches are filled by the simulation thread and handed to another thread as a whole.
+ */
+class EventBatch {
+    private static final Status[] STATUSES = Status.values();
+
+    private final double[] times;
+    private final int[] ids;
+    private final boolean[] greedy;
+    private final byte[] codes;
+    private final int[] serverIds;
+    private final boolean[] selfCheck;
+    private int size;
+
+    /**
+     * Creates an empty EventBatch.
+     * @param capacity Maximum number of Events in the batch.
+     */
+    EventBatch(int capacity) {
+        times = new double[capacity];
+        ids = new int[capacity];
+        greedy = new boolean[capacity];
+        codes = new byte[capacity];
+        serverIds = new int[capacity];
+        selfCheck = new boolean[capacity];
+    }
+
+    /**
+     * Adds an Event to the batch.
+     * @return true if the batch is now full.
+     */
+    boolean add(double time, int id, boolean isGreedy, Status status, 
+            int serverId, boolean isSelfCheck) {
+        times[size] = time;
+        ids[size] = id;
+        greedy[size] = isGreedy;
+        codes[size] = (byte) status.getCode();
+        serverIds[size] = serverId;
+        selfCheck[size] = isSelfCheck;
+        size++;
+        return size == times.length;
+    }
+
+    /**
+     * Gets the number of Events in the batch.
+     * @return Number of Events.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Empties the batch without logging its Events.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Logs every Event in the batch to an EventSink, in order, and empties the batch.
+     * @param sink EventSink to log the Events to.
+     */
+    void drainTo(EventSink sink) {
+        for (int i = 0; i < size; i++) {
+            sink.log(times[i], ids[i], greedy[i], STATUSES[codes[i]], serverIds[i], selfCheck[i]);
+        }
+        size = 0;
+    }
+}
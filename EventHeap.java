@@ -0,0 +1,209 @@
+package cs2030.simulator;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * An EventQueue that stores Events in parallel primitive arrays arranged as a 4-ary min-heap.
+ * Adding and polling Events does not allocate any objects, except when the arrays grow.
+ * Events are ordered exactly like ContractComparator orders Contracts.
+ */
+class EventHeap implements EventQueue {
+    private static final int ARITY = 4;
+    private static final Status[] STATUSES = Status.values();
+
+    private double[] times;
+    private int[] ids;
+    private int[] servers;
+    private byte[] codes;
+    private boolean[] greedy;
+    private int size;
+
+    private double currTime;
+    private int currId;
+    private int currServer;
+    private byte currCode;
+    private boolean currGreedy;
+
+    /**
+     * Creates an empty EventHeap.
+     */
+    EventHeap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty EventHeap able to hold a number of Events before growing.
+     * @param capacity Initial capacity.
+     */
+    EventHeap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        times = new double[capacity];
+        ids = new int[capacity];
+        servers = new int[capacity];
+        codes = new byte[capacity];
+        greedy = new boolean[capacity];
+    }
+
+    @Override
+    public void add(double time, int id, boolean isGreedy, Status status, Server server) {
+        if (size == times.length) {
+            grow();
+        }
+        int i = size++;
+        set(i, time, id, server == null ? 0 : server.getID(), (byte) status.getCode(), isGreedy);
+        siftUp(i);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double peekTime() {
+        return times[0];
+    }
+
+    @Override
+    public void poll() {
+        currTime = times[0];
+        currId = ids[0];
+        currServer = servers[0];
+        currCode = codes[0];
+        currGreedy = greedy[0];
+        size--;
+        if (size > 0) {
+            set(0, times[size], ids[size], servers[size], codes[size], greedy[size]);
+            siftDown(0);
+        }
+    }
+
+    @Override
+    public double getTime() {
+        return currTime;
+    }
+
+    @Override
+    public int getID() {
+        return currId;
+    }
+
+    @Override
+    public boolean isGreedy() {
+        return currGreedy;
+    }
+
+    @Override
+    public Status getStatus() {
+        return STATUSES[currCode];
+    }
+
+    @Override
+    public int getServerID() {
+        return currServer;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(times[i]);
+            out.writeInt(ids[i]);
+            out.writeBoolean(greedy[i]);
+            out.writeByte(codes[i]);
+            out.writeInt(servers[i]);
+        }
+    }
+
+    /**
+     * Checks if the Event at index i is ordered strictly before the Event at index j.
+     * Follows the same rules as ContractComparator: time first, and if both Events have
+     * a Customer, then Customer Id and then Status code.
+     */
+    private boolean before(int i, int j) {
+        if (times[i] != times[j]) {
+            return times[i] < times[j];
+        }
+        if (ids[i] == -1 || ids[j] == -1) {
+            return false;
+        }
+        if (ids[i] != ids[j]) {
+            return ids[i] < ids[j];
+        }
+        return codes[i] < codes[j];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / ARITY;
+            if (!before(i, parent)) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int first = i * ARITY + 1;
+            if (first >= size) {
+                return;
+            }
+            int min = first;
+            int last = Math.min(first + ARITY, size);
+            for (int c = first + 1; c < last; c++) {
+                if (before(c, min)) {
+                    min = c;
+                }
+            }
+            if (!before(min, i)) {
+                return;
+            }
+            swap(i, min);
+            i = min;
+        }
+    }
+
+    private void set(int i, double time, int id, int server, byte code, boolean isGreedy) {
+        times[i] = time;
+        ids[i] = id;
+        servers[i] = server;
+        codes[i] = code;
+        greedy[i] = isGreedy;
+    }
+
+    private void swap(int i, int j) {
+        double t = times[i];
+        times[i] = times[j];
+        times[j] = t;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        int s = servers[i];
+        servers[i] = servers[j];
+        servers[j] = s;
+        byte code = codes[i];
+        codes[i] = codes[j];
+        codes[j] = code;
+        boolean g = greedy[i];
+        greedy[i] = greedy[j];
+        greedy[j] = g;
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        servers = Arrays.copyOf(servers, capacity);
+        codes = Arrays.copyOf(codes, capacity);
+        greedy = Arrays.copyOf(greedy, capacity);
+    }
+}
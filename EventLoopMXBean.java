@@ -0,0 +1,58 @@
+package cs2030.simulator;
+
+/**
+ * Management interface of the event loop of a running Simulator, registered with the
+ * platform MBeanServer while a run is in progress if instrumentation is enabled.
+ * Counts and times are indexed by Status code.
+ */
+public interface EventLoopMXBean {
+
+    /**
+     * Gets the name of each Status, indexed by Status code.
+     * @return Status names.
+     */
+    String[] getStatuses();
+
+    /**
+     * Gets the number of Events handled of each Status.
+     * @return Event counts, indexed by Status code.
+     */
+    long[] getEventCounts();
+
+    /**
+     * Gets the wall-clock time spent handling Events of each Status, including the EventQueue
+     * operations, routing and logging they cause.
+     * @return Nanoseconds, indexed by Status code.
+     */
+    long[] getEventNanos();
+
+    /**
+     * Gets the largest number of pending Events so far.
+     * @return High-water mark of the EventQueue size.
+     */
+    int getMaxPendingEvents();
+
+    /**
+     * Gets the number of times an arriving Customer was routed to a queue.
+     * @return Number of RoutingPolicy calls.
+     */
+    long getRoutingCalls();
+
+    /**
+     * Gets the wall-clock time spent in RoutingPolicies.
+     * @return Nanoseconds.
+     */
+    long getRoutingNanos();
+
+    /**
+     * Gets the simulation time of the latest Event.
+     * @return Simulation time.
+     */
+    double getSimulationTime();
+
+    /**
+     * Gets the number of Events handled per second of wall-clock time since the run started.
+     * @return Event rate.
+     */
+    double getEventsPerSecond();
+}
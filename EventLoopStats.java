@@ -0,0 +1,158 @@
+package cs2030.simulator;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers of the event loop of one run.
+ * Instrumentation is enabled with the system property cs2030.simulator.instrument=true.
+ * The property is read once into a static final field, so when it is off the JIT removes
+ * every instrumentation branch and the event loop runs exactly as without it.
+ * The counters are written by the thread running the Simulator without synchronization,
+ * so values read from other threads, e.g. over JMX, may be slightly out of date.
+ */
+public class EventLoopStats implements EventLoopMXBean {
+    static final boolean ENABLED = Boolean.getBoolean("cs2030.simulator.instrument");
+    private static final Status[] STATUSES = Status.values();
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    private final long[] counts = new long[STATUSES.length];
+    private final long[] nanos = new long[STATUSES.length];
+    private int maxPending;
+    private long routingCalls;
+    private long routingNanos;
+    private double simulationTime;
+    private long events;
+    private long startNanos;
+    private long endNanos;
+    private ObjectName name;
+
+    /**
+     * Checks if instrumentation is enabled in this JVM.
+     * @return true if Simulators collect EventLoopStats.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Starts the wall clock and registers the MBean, named
+     * cs2030.simulator:type=EventLoop,run=n for the nth run in this JVM.
+     */
+    void start() {
+        startNanos = System.nanoTime();
+        endNanos = 0;
+        try {
+            name = new ObjectName("cs2030.simulator:type=EventLoop,run="
+                + RUNS.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register event loop MBean", e);
+        }
+    }
+
+    /**
+     * Records a handled Event.
+     * @param status Status of the Event.
+     * @param time Simulation time of the Event.
+     * @param pending Number of pending Events before it was handled.
+     * @param elapsed Nanoseconds spent handling it.
+     */
+    void event(Status status, double time, int pending, long elapsed) {
+        int code = status.getCode();
+        counts[code]++;
+        nanos[code] += elapsed;
+        events++;
+        simulationTime = time;
+        if (pending > maxPending) {
+            maxPending = pending;
+        }
+    }
+
+    /**
+     * Records a call to a RoutingPolicy.
+     * @param elapsed Nanoseconds spent routing.
+     */
+    void routed(long elapsed) {
+        routingCalls++;
+        routingNanos += elapsed;
+    }
+
+    /**
+     * Stops the wall clock and unregisters the MBean.
+     */
+    void finish() {
+        endNanos = System.nanoTime();
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot unregister event loop MBean", e);
+        }
+    }
+
+    @Override
+    public String[] getStatuses() {
+        String[] names = new String[STATUSES.length];
+        for (Status s : STATUSES) {
+            names[s.getCode()] = s.name();
+        }
+        return names;
+    }
+
+    @Override
+    public long[] getEventCounts() {
+        return counts.clone();
+    }
+
+    @Override
+    public long[] getEventNanos() {
+        return nanos.clone();
+    }
+
+    @Override
+    public int getMaxPendingEvents() {
+        return maxPending;
+    }
+
+    @Override
+    public long getRoutingCalls() {
+        return routingCalls;
+    }
+
+    @Override
+    public long getRoutingNanos() {
+        return routingNanos;
+    }
+
+    @Override
+    public double getSimulationTime() {
+        return simulationTime;
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        long elapsed = (endNanos == 0 ? System.nanoTime() : endNanos) - startNanos;
+        return elapsed <= 0 ? 0 : events * 1e9 / elapsed;
+    }
+
+    /**
+     * Returns a table of the counts and average times of each Status and of routing.
+     * @return String representation of the EventLoopStats.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Status s : STATUSES) {
+            int code = s.getCode();
+            sb.append(String.format("%-8s %12d events %10.1f ns/event%n", s.name(), counts[code],
+                counts[code] == 0 ? 0.0 : (double) nanos[code] / counts[code]));
+        }
+        sb.append(String.format("%-8s %12d calls  %10.1f ns/call%n", "ROUTING", routingCalls,
+            routingCalls == 0 ? 0.0 : (double) routingNanos / routingCalls));
+        sb.append(String.format("max pending events %d, %.0f events/s", maxPending,
+            getEventsPerSecond()));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package cs2030.simulator;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A priority queue of pending Events.
+ * Events are ordered by time, then by Customer Id, then by Status code.
+ * An Event without a Customer, i.e. a Server coming BACK from rest, is ordered by time only.
+ * The earliest Event is removed with poll, after which its fields can be read with the getters.
+ */
+interface EventQueue {
+
+    /**
+     * Adds an Event to the queue.
+     * @param time Time of the Event.
+     * @param id Id of the Customer, -1 if there is no Customer.
+     * @param greedy true if the Customer is a GreedyCustomer.
+     * @param status Status of the Event.
+     * @param server Server associated with the Event, null if there is none yet.
+     */
+    void add(double time, int id, boolean greedy, Status status, Server server);
+
+    /**
+     * Checks if there are no pending Events.
+     * @return true if the queue is empty.
+     */
+    boolean isEmpty();
+
+    /**
+     * Gets the number of pending Events.
+     * @return Number of Events in the queue.
+     */
+    int size();
+
+    /**
+     * Gets the time of the earliest Event without removing it.
+     * @return Time of the earliest Event.
+     */
+    double peekTime();
+
+    /**
+     * Removes the earliest Event and makes it the current Event.
+     */
+    void poll();
+
+    /**
+     * Writes every pending Event as its time, Customer Id, greedy flag, Status code and
+     * Server Id, in the internal order of the queue. Adding the Events back to an empty
+     * queue in the same order restores the queue exactly, including the order of Events
+     * that compare as equal.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException;
+
+    /**
+     * Gets the time of the current Event.
+     * @return Time of the current Event.
+     */
+    double getTime();
+
+    /**
+     * Gets the Id of the Customer of the current Event.
+     * @return Id of Customer, -1 if there is no Customer.
+     */
+    int getID();
+
+    /**
+     * Checks if the Customer of the current Event is a GreedyCustomer.
+     * @return true if the Customer is greedy.
+     */
+    boolean isGreedy();
+
+    /**
+     * Gets the Status of the current Event.
+     * @return Status of the current Event.
+     */
+    Status getStatus();
+
+    /**
+     * Gets the Id of the Server of the current Event.
+     * @return Id of Server, 0 if there is no Server.
+     */
+    int getServerID();
+}
@@ -0,0 +1,25 @@
+package cs2030.simulator;
+
+/**
+ * A destination for the Events a Simulator logs while it runs.
+ * Each logged Event is one line of the simulation trace, e.g. a Customer arriving,
+ * waiting, being served, leaving or being done.
+ */
+public interface EventSink {
+
+    /**
+     * Logs an Event.
+     * @param time Time of the Event.
+     * @param id Id of the Customer.
+     * @param greedy true if the Customer is a GreedyCustomer.
+     * @param status ARRIVED, WAIT, SERVED, LEAVE, DONE or RENEGE.
+     * @param serverId Id of the Server, 0 if there is no Server.
+     * @param selfCheck true if the Server is a self-checkout counter.
+     */
+    void log(double time, int id, boolean greedy, Status status, int serverId, boolean selfCheck);
+
+    /**
+     * Makes sure every Event logged so far has been written out.
+     */
+    void flush();
+}
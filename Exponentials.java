@@ -0,0 +1,70 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Exponentially distributed random numbers, generated in batches into a primitive buffer.
+ * Numbers are drawn from the RandomStream in the same order as generating them one at
+ * a time, so batching does not change the sequence.
+ */
+class Exponentials {
+    private final RandomStream stream;
+    private final double rate;
+    private final double[] buffer;
+    private int next;
+
+    /**
+     * Creates Exponentials.
+     * @param stream RandomStream the numbers are generated from.
+     * @param rate Rate of the exponential distribution.
+     * @param batch Number of values generated at a time.
+     */
+    Exponentials(RandomStream stream, double rate, int batch) {
+        this.stream = stream;
+        this.rate = rate;
+        this.buffer = new double[batch];
+        this.next = batch;
+    }
+
+    /**
+     * Gets the next exponentially distributed number.
+     * @return Random number with mean 1 / rate.
+     */
+    double next() {
+        if (next == buffer.length) {
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] = -Math.log(stream.nextDouble()) / rate;
+            }
+            next = 0;
+        }
+        return buffer[next++];
+    }
+
+    /**
+     * Writes the state of the stream and the numbers left in the buffer.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException {
+        stream.write(out);
+        out.writeInt(next);
+        for (int i = next; i < buffer.length; i++) {
+            out.writeDouble(buffer[i]);
+        }
+    }
+
+    /**
+     * Restores the state written by write.
+     * @param in DataInput to read from.
+     * @throws IOException if reading fails.
+     */
+    void read(DataInput in) throws IOException {
+        stream.read(in);
+        next = in.readInt();
+        for (int i = next; i < buffer.length; i++) {
+            buffer[i] = in.readDouble();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package cs2030.simulator;
+
+/**
+ * The stationary behaviour of an M/M/c/K queue: Poisson arrivals, c exponential Servers
+ * and room for K - c waiting Customers, beyond which arrivals are blocked.
+ * Probabilities are computed in log space, with geometric sums over the waiting places,
+ * so that solving a queue takes O(c) time however long it may grow.
+ */
+class FiniteQueue {
+    private static final double TOLERANCE = 1e-12;
+
+    private final int servers;
+    private final int room;
+    private final double rate;
+    //log of the unnormalized probability of k busy Servers and nobody waiting
+    private final double[] logTerms;
+    private double arrivalRate;
+    private double blocking;
+    private double waiting;
+    private double busy;
+
+    /**
+     * Creates a FiniteQueue.
+     * @param servers Number of Servers, c.
+     * @param room Number of waiting places, K - c.
+     * @param rate Service rate of each Server.
+     */
+    FiniteQueue(int servers, int room, double rate) {
+        this.servers = servers;
+        this.room = room;
+        this.rate = rate;
+        this.logTerms = new double[servers + 1];
+    }
+
+    /**
+     * Solves the queue for the arrival rate at which it carries a throughput.
+     * A throughput of at least the total service rate saturates it: the queue is always
+     * full and blocks every further arrival.
+     * @param throughput Rate of Customers who are not blocked.
+     */
+    void carry(double throughput) {
+        if (throughput <= 0) {
+            offer(0);
+            return;
+        }
+        if (throughput >= servers * rate * (1 - 1e-12)) {
+            arrivalRate = Double.POSITIVE_INFINITY;
+            blocking = 1;
+            waiting = room;
+            busy = servers;
+            return;
+        }
+        double low = 0;
+        double high = throughput;
+        offer(high);
+        while (high * (1 - blocking) < throughput) {
+            low = high;
+            high *= 2;
+            offer(high);
+        }
+        while (high - low > TOLERANCE * high) {
+            double mid = (low + high) / 2;
+            offer(mid);
+            if (mid * (1 - blocking) < throughput) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        offer(high);
+    }
+
+    /**
+     * Solves the queue for an arrival rate.
+     * @param arrivalRate Rate of Poisson arrivals.
+     */
+    void offer(double arrivalRate) {
+        this.arrivalRate = arrivalRate;
+        if (arrivalRate == 0) {
+            blocking = 0;
+            waiting = 0;
+            busy = 0;
+            return;
+        }
+        double logLoad = Math.log(arrivalRate / rate);
+        double max = 0;
+        for (int k = 1; k <= servers; k++) {
+            logTerms[k] = logTerms[k - 1] + logLoad - Math.log(k);
+            max = Math.max(max, logTerms[k]);
+        }
+        //waiting places hold j = 0..room Customers with weights r^j beyond logTerms[servers]
+        double r = arrivalRate / (servers * rate);
+        double logFull = logTerms[servers] + room * Math.log(r);
+        double logTail;
+        double meanWaiting;
+        if (r <= 1) {
+            double[] sums = geometric(r);
+            logTail = logTerms[servers] + Math.log(sums[0]);
+            meanWaiting = sums[1] / sums[0];
+        } else {
+            //sum r^j = r^room * sum (1 / r)^i with i = room - j
+            double[] sums = geometric(1 / r);
+            logTail = logFull + Math.log(sums[0]);
+            meanWaiting = room - sums[1] / sums[0];
+        }
+        max = Math.max(max, logTail);
+        double total = Math.exp(logTail - max);
+        double busyTotal = servers * total;
+        for (int k = 0; k < servers; k++) {
+            double p = Math.exp(logTerms[k] - max);
+            total += p;
+            busyTotal += k * p;
+        }
+        blocking = Math.exp(logFull - max) / total;
+        waiting = Math.exp(logTail - max) / total * meanWaiting;
+        busy = busyTotal / total;
+    }
+
+    /**
+     * Sums s^i and i * s^i over i = 0..room.
+     * @param s Ratio, at most 1.
+     * @return Both sums.
+     */
+    private double[] geometric(double s) {
+        if (1 - s < 1e-9) {
+            return new double[]{room + 1, room * (room + 1) / 2.0};
+        }
+        double power = Math.pow(s, room);
+        double sum = (1 - power * s) / (1 - s);
+        double weighted = s * (1 - (room + 1) * power + room * power * s) / ((1 - s) * (1 - s));
+        return new double[]{sum, weighted};
+    }
+
+    /**
+     * Gets the arrival rate the queue was last solved for.
+     * @return Arrival rate, infinity if the queue is saturated.
+     */
+    double getArrivalRate() {
+        return arrivalRate;
+    }
+
+    /**
+     * Gets the probability that an arrival finds the queue full.
+     * @return Blocking probability.
+     */
+    double getBlocking() {
+        return blocking;
+    }
+
+    /**
+     * Gets the mean number of waiting Customers.
+     * @return Mean queue length.
+     */
+    double getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * Gets the mean number of busy Servers.
+     * @return Mean number of busy Servers.
+     */
+    double getBusy() {
+        return busy;
+    }
+}
@@ -0,0 +1,127 @@
+package cs2030.simulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A run paused at a point in simulation time, from which any number of variants carry on,
+ * e.g. with more self-checkout counters, a longer maximum queue length or more greedy
+ * Customers. The state of the run is serialized once, in the snapshot format, into a byte
+ * array that every variant only reads, and each variant restores its own copy of it.
+ * With streamed arrivals that state only grows with the number of Servers, waiting
+ * Customers and pending Events, so restoring it is cheap next to the rest of the run,
+ * and the event loop keeps working on its primitive arrays.
+ * A Fork never changes, so variants can carry on from it on separate threads.
+ */
+public class Fork {
+    private final byte[] state;
+    private final double time;
+    private final int limit;
+    private final double prob;
+    private final double greedyProb;
+
+    /**
+     * Creates a Fork.
+     * @param state Serialized state of the run.
+     * @param time Simulation time of the Fork.
+     * @param limit Maximum queue length of the run.
+     * @param prob Resting probability of the run.
+     * @param greedyProb Probability of encountering a greedy Customer in the run.
+     */
+    Fork(byte[] state, double time, int limit, double prob, double greedyProb) {
+        this.state = state;
+        this.time = time;
+        this.limit = limit;
+        this.prob = prob;
+        this.greedyProb = greedyProb;
+    }
+
+    /**
+     * Gets the simulation time of the Fork. Every Event before it has been handled.
+     * @return Simulation time.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Gets the maximum queue length of the run that was forked.
+     * @return Maximum queue length.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the resting probability of the run that was forked.
+     * @return Resting probability.
+     */
+    public double getProb() {
+        return prob;
+    }
+
+    /**
+     * Gets the probability of encountering a greedy Customer in the run that was forked.
+     * @return Probability of encountering a greedy Customer.
+     */
+    public double getGreedyProb() {
+        return greedyProb;
+    }
+
+    /**
+     * Gets the number of bytes of state every variant restores.
+     * @return Size of the serialized state.
+     */
+    public int getSize() {
+        return state.length;
+    }
+
+    /**
+     * Opens the serialized state for reading.
+     * @return DataInputStream over the state.
+     */
+    DataInputStream open() {
+        return new DataInputStream(new ByteArrayInputStream(state));
+    }
+
+    /**
+     * Carries on the run in several variants over a pool of worker threads.
+     * Variant i resumes with limits[i], probs[i] and greedyProbs[i].
+     * @param variants Simulators to carry on in, each with its own EventSink.
+     * @param limits Maximum queue length of each variant.
+     * @param probs Resting probability of each variant.
+     * @param greedyProbs Probability of encountering a greedy Customer in each variant.
+     * @param threads Number of worker threads.
+     * @return Results of resume for each variant, in the order of variants.
+     */
+    public List<double[]> resumeAll(List<Simulator> variants, int[] limits, double[] probs,
+            double[] greedyProbs, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<double[]>> tasks = new ArrayList<>();
+        for (int i = 0; i < variants.size(); i++) {
+            Simulator variant = variants.get(i);
+            int v = i;
+            tasks.add(pool.submit(() -> variant.resume(this, limits[v], probs[v], greedyProbs[v])));
+        }
+        List<double[]> results = new ArrayList<>();
+        try {
+            for (Future<double[]> task : tasks) {
+                results.add(task.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while resuming variants", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("variant failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+}
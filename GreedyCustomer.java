@@ -1,7 +1,6 @@
 package cs2030.simulator;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * A GreedyCustomer is a Customer that looks for the shortest queue to join.
@@ -11,8 +10,10 @@ class GreedyCustomer extends Customer {
     /**
      * Creates a GreedyCustomer with an Id,status, time.
      * @param id Identification of Customer.
-     * @param status Status is his most recent activity, i.e. arrival, wait, serve, done or leave.
-     * @param time Time of his most recent activity, i.e. arrival, wait, serve, done or leave.
+     * @param status Status is his most recent activity, i.e. arrival, wait, serve, done, leave
+     *     or renege.
+     * @param time Time of his most recent activity, i.e. arrival, wait, serve, done, leave
+     *     or renege.
      */
     GreedyCustomer(int id, Status status, double time) {
         super(id,status,time);
@@ -24,27 +25,25 @@ class GreedyCustomer extends Customer {
         return new GreedyCustomer(getID(), nextStatus, nextTime);
     }
 
+    /**
+     * Checks if this is a GreedyCustomer.
+     * @return true
+     */
+    @Override
+    boolean isGreedy() {
+        return true;
+    }
+
     /**
      * Since this is a GreedyCustomer, findServer finds the Server with smallest queue size.
      * @param servers List of Servers.
-     * @param queue All queues in the store.
+     * @param index ServerIndex over all Servers and queues in the store.
      * @param limit Maximum queue length.
      * @return Server with smallest queue length, null if all are full.
      */
     @Override
-    Server findServer(List<Server> servers, Map<Integer,List<Customer>> queue, int limit) {
-        int leastQueue = -1;
-        for (int i = 0; i < servers.size(); i++) {
-            if (queue.get(servers.get(i).getQueueId()).size() < limit) {
-                if (leastQueue == -1) {
-                    leastQueue = servers.get(i).getQueueId();
-                } else {
-                    leastQueue = queue.get(servers.get(i).getQueueId()).size() < 
-                    queue.get(leastQueue).size() ? 
-                    servers.get(i).getQueueId() : leastQueue;
-                }
-            }
-        }
+    Server findServer(List<Server> servers, ServerIndex index, int limit) {
+        int leastQueue = RoutingPolicy.SHORTEST_QUEUE.route(index, limit, getTime());
         return leastQueue == -1 ? null : servers.get(leastQueue - 1);
     }
 
@@ -0,0 +1,138 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A histogram of non-negative values with a fixed relative precision, in the style of an
+ * HdrHistogram. Every power of two is split into 128 equal sub-buckets, so a recorded value
+ * is reported to within 1% of its true value. Zero is counted exactly.
+ * Recording a value only increments a counter in a preallocated array.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUBS = 1 << SUB_BITS;
+    private static final int MIN_EXP = -30;
+    private static final int MAX_EXP = 40;
+    private static final int BUCKETS = (MAX_EXP - MIN_EXP + 1) * SUBS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long zeros;
+    private long total;
+    private double max;
+
+    /**
+     * Records a value.
+     * @param value Non-negative value, values beyond the supported range are clamped.
+     */
+    public void record(double value) {
+        total++;
+        if (value > max) {
+            max = value;
+        }
+        if (value <= 0) {
+            zeros++;
+            return;
+        }
+        counts[index(value)]++;
+    }
+
+    /**
+     * Gets the number of values recorded.
+     * @return Number of values.
+     */
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * Gets the largest value recorded.
+     * @return Largest value, 0 if none were recorded.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the value at a percentile.
+     * @param percentile Percentile between 0 and 100, e.g. 99 for p99.
+     * @return Smallest recorded value such that the given percentage of values are at most it,
+     *     to within the precision of the histogram. 0 if no values were recorded.
+     */
+    public double getPercentile(double percentile) {
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        if (rank <= zeros) {
+            return 0;
+        }
+        long seen = zeros;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(value(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Writes the counts, listing only the buckets that are not empty.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(zeros);
+        out.writeLong(total);
+        out.writeDouble(max);
+        int buckets = 0;
+        for (long c : counts) {
+            buckets += c == 0 ? 0 : 1;
+        }
+        out.writeInt(buckets);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                out.writeInt(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Restores the counts written by write.
+     * @param in DataInput to read from.
+     * @throws IOException if reading fails.
+     */
+    void read(DataInput in) throws IOException {
+        zeros = in.readLong();
+        total = in.readLong();
+        max = in.readDouble();
+        int buckets = in.readInt();
+        for (int i = 0; i < buckets; i++) {
+            counts[in.readInt()] = in.readLong();
+        }
+    }
+
+    /**
+     * Gets the bucket of a positive value from its exponent and top mantissa bits.
+     */
+    private static int index(double value) {
+        int exp = Math.getExponent(value);
+        if (exp < MIN_EXP) {
+            return 0;
+        }
+        if (exp > MAX_EXP) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (Double.doubleToRawLongBits(value) >>> (52 - SUB_BITS)) & (SUBS - 1);
+        return (exp - MIN_EXP) * SUBS + sub;
+    }
+
+    /**
+     * Gets the midpoint of a bucket.
+     */
+    private static double value(int index) {
+        int exp = index / SUBS + MIN_EXP;
+        int sub = index % SUBS;
+        return Math.scalb(1 + (sub + 0.5) / SUBS, exp);
+    }
+}
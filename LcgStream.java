@@ -0,0 +1,47 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A RandomStream that generates exactly the same numbers as java.util.Random
+ * with the same seed, using the same 48-bit linear congruential generator.
+ * Unlike java.util.Random, it is not synchronized.
+ */
+class LcgStream implements RandomStream {
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long seed;
+
+    /**
+     * Creates an LcgStream.
+     * @param seed Seed, as passed to java.util.Random.
+     */
+    LcgStream(long seed) {
+        this.seed = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (((long) next(26) << 27) + next(27)) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(seed);
+    }
+
+    @Override
+    public void read(DataInput in) throws IOException {
+        seed = in.readLong();
+    }
+
+    private int next(int bits) {
+        seed = (seed * MULTIPLIER + ADDEND) & MASK;
+        return (int) (seed >>> (48 - bits));
+    }
+}
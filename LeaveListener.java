@@ -0,0 +1,15 @@
+package cs2030.simulator;
+
+/**
+ * Receives the Customers who leave a store because every queue is full.
+ */
+interface LeaveListener {
+
+    /**
+     * Receives a Customer who has left.
+     * @param time Time the Customer left.
+     * @param id Id of the Customer.
+     * @param greedy true if the Customer is a GreedyCustomer.
+     */
+    void left(double time, int id, boolean greedy);
+}
@@ -1,5 +1,5 @@
+import cs2030.simulator.Batch;
 import cs2030.simulator.Simulator;
-import java.util.Scanner;
 import java.util.PriorityQueue;
 import java.util.List;
 import java.util.ArrayList;
@@ -24,27 +24,39 @@ class Main {
         double prob, double greedyProb) {
         Simulator sim = new Simulator(servers,self);
         double[] arr = sim.serve(count, limit, seed, lambda, mu, rho, prob, greedyProb);
-        int customerNumber = count;
         int customersLeft = (int) arr[0];
-        int customersServed = customerNumber - customersLeft;
+        int customersServed = (int) sim.getMetrics().getServed();
         double totalWaitingTime = arr[1];
         double avgWaitingTime = customersServed == 0 ? 0.000 : totalWaitingTime / customersServed;
         System.out.println(String.format("[%.3f %d %d]",avgWaitingTime, 
                     customersServed, customersLeft));
     }
 
+    /**
+     * Reads one scenario from standard input and prints its trace and summary.
+     * Given a file of scenarios, or - for standard input, runs all of them with Batch instead
+     * and prints only their summaries.
+     * @param args Nothing, or the arguments of Batch.
+     */
     public static void main(String[] args) {
-        Scanner sc = new Scanner(System.in);
-        int seed = sc.nextInt();
-        int servers = sc.nextInt();
-        int self = sc.nextInt();
-        int limit = sc.nextInt();
-        int count = sc.nextInt();
-        double lambda = sc.nextDouble();
-        double mu = sc.nextDouble();
-        double rho = sc.nextDouble();
-        double probability = sc.nextDouble();
-        double greedyProb = sc.nextDouble();
+        if (args.length > 0) {
+            Batch.main(args);
+            return;
+        }
+        double[] scenario = new Batch(System.in).next();
+        if (scenario == null) {
+            throw new IllegalArgumentException("no scenario given");
+        }
+        int seed = (int) scenario[0];
+        int servers = (int) scenario[1];
+        int self = (int) scenario[2];
+        int limit = (int) scenario[3];
+        int count = (int) scenario[4];
+        double lambda = scenario[5];
+        double mu = scenario[6];
+        double rho = scenario[7];
+        double probability = scenario[8];
+        double greedyProb = scenario[9];
         printQueue(seed, servers, self, limit, count, lambda, mu, rho, probability, greedyProb);
     }
 }
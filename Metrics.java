@@ -0,0 +1,349 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Results of a simulation run, accumulated while the run is in progress.
+ * Besides the number of Customers who left and the total waiting time, it keeps
+ * per-Server busy and rest time, per-queue time-weighted and maximum length,
+ * a Histogram of waiting times, balking and reneging by Customer type and the event rate.
+ * All accumulators are primitive arrays sized when the run starts.
+ */
+public class Metrics {
+    private final double[] busyTime;
+    private final double[] restTime;
+    private final double[] queueArea;
+    private final double[] queueChanged;
+    private final int[] queueLength;
+    private final int[] maxQueueLength;
+    private final Histogram waitingTimes = new Histogram();
+    private double totalWaitingTime;
+    private long served;
+    private long leftNormal;
+    private long leftGreedy;
+    private long renegedNormal;
+    private long renegedGreedy;
+    private long events;
+    private double endTime;
+    private long startNanos;
+    private long elapsedNanos;
+
+    /**
+     * Creates empty Metrics.
+     * @param servers Number of Servers, including self-checkout counters.
+     * @param queues Number of queues.
+     */
+    Metrics(int servers, int queues) {
+        busyTime = new double[servers + 1];
+        restTime = new double[servers + 1];
+        queueArea = new double[queues + 1];
+        queueChanged = new double[queues + 1];
+        queueLength = new int[queues + 1];
+        maxQueueLength = new int[queues + 1];
+    }
+
+    /**
+     * Starts the wall clock of the run.
+     */
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Counts a processed Event.
+     * @param time Time of the Event.
+     */
+    void event(double time) {
+        events++;
+        endTime = time;
+    }
+
+    /**
+     * Records a Customer being served.
+     * @param waitingTime Time the Customer spent in a queue.
+     */
+    void served(double waitingTime) {
+        served++;
+        totalWaitingTime += waitingTime;
+        waitingTimes.record(waitingTime);
+    }
+
+    /**
+     * Records a Customer leaving because every queue was full.
+     * @param greedy true if the Customer is a GreedyCustomer.
+     */
+    void left(boolean greedy) {
+        if (greedy) {
+            leftGreedy++;
+        } else {
+            leftNormal++;
+        }
+    }
+
+    /**
+     * Records a Customer leaving a queue because he ran out of patience.
+     * @param greedy true if the Customer is a GreedyCustomer.
+     */
+    void reneged(boolean greedy) {
+        if (greedy) {
+            renegedGreedy++;
+        } else {
+            renegedNormal++;
+        }
+    }
+
+    /**
+     * Adds to the time a Server spends serving.
+     * @param id Id of Server.
+     * @param time Service time.
+     */
+    void busy(int id, double time) {
+        busyTime[id] += time;
+    }
+
+    /**
+     * Adds to the time a Server spends resting.
+     * @param id Id of Server.
+     * @param time Resting time.
+     */
+    void rest(int id, double time) {
+        restTime[id] += time;
+    }
+
+    /**
+     * Takes off the part of a service or rest that was booked after the end of the run.
+     * @param id Id of Server.
+     * @param until Time the service or rest was booked until.
+     * @param rest true for a rest, false for a service.
+     */
+    void clip(int id, double until, boolean rest) {
+        if (rest) {
+            restTime[id] -= until - endTime;
+        } else {
+            busyTime[id] -= until - endTime;
+        }
+    }
+
+    /**
+     * Records a change in the length of a queue.
+     * @param queueId Id of queue.
+     * @param length New queue length.
+     * @param time Time of the change.
+     */
+    void queueLength(int queueId, int length, double time) {
+        queueArea[queueId] += queueLength[queueId] * (time - queueChanged[queueId]);
+        queueChanged[queueId] = time;
+        queueLength[queueId] = length;
+        if (length > maxQueueLength[queueId]) {
+            maxQueueLength[queueId] = length;
+        }
+    }
+
+    /**
+     * Stops the wall clock of the run.
+     */
+    void finish() {
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Writes every accumulator except the wall clock.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException {
+        for (int i = 0; i < busyTime.length; i++) {
+            out.writeDouble(busyTime[i]);
+            out.writeDouble(restTime[i]);
+        }
+        for (int i = 0; i < queueArea.length; i++) {
+            out.writeDouble(queueArea[i]);
+            out.writeDouble(queueChanged[i]);
+            out.writeInt(queueLength[i]);
+            out.writeInt(maxQueueLength[i]);
+        }
+        waitingTimes.write(out);
+        out.writeDouble(totalWaitingTime);
+        out.writeLong(served);
+        out.writeLong(leftNormal);
+        out.writeLong(leftGreedy);
+        out.writeLong(renegedNormal);
+        out.writeLong(renegedGreedy);
+        out.writeLong(events);
+        out.writeDouble(endTime);
+    }
+
+    /**
+     * Restores the accumulators written by write.
+     * The Metrics that wrote them may have had fewer Servers and queues, whose
+     * accumulators then stay empty.
+     * @param in DataInput to read from.
+     * @param servers Number of Servers of the Metrics that wrote them.
+     * @param queues Number of queues of the Metrics that wrote them.
+     * @throws IOException if reading fails.
+     */
+    void read(DataInput in, int servers, int queues) throws IOException {
+        for (int i = 0; i <= servers; i++) {
+            busyTime[i] = in.readDouble();
+            restTime[i] = in.readDouble();
+        }
+        for (int i = 0; i <= queues; i++) {
+            queueArea[i] = in.readDouble();
+            queueChanged[i] = in.readDouble();
+            queueLength[i] = in.readInt();
+            maxQueueLength[i] = in.readInt();
+        }
+        waitingTimes.read(in);
+        totalWaitingTime = in.readDouble();
+        served = in.readLong();
+        leftNormal = in.readLong();
+        leftGreedy = in.readLong();
+        renegedNormal = in.readLong();
+        renegedGreedy = in.readLong();
+        events = in.readLong();
+        endTime = in.readDouble();
+    }
+
+    /**
+     * Gets the total time served Customers spent waiting.
+     * @return Total waiting time.
+     */
+    public double getTotalWaitingTime() {
+        return totalWaitingTime;
+    }
+
+    /**
+     * Gets the average time served Customers spent waiting.
+     * @return Average waiting time, 0 if no Customer was served.
+     */
+    public double getAverageWaitingTime() {
+        return served == 0 ? 0 : totalWaitingTime / served;
+    }
+
+    /**
+     * Gets the distribution of the time served Customers spent waiting,
+     * including those served immediately.
+     * @return Histogram of waiting times.
+     */
+    public Histogram getWaitingTimes() {
+        return waitingTimes;
+    }
+
+    /**
+     * Gets the number of Customers served.
+     * @return Number of Customers served.
+     */
+    public long getServed() {
+        return served;
+    }
+
+    /**
+     * Gets the number of Customers who left.
+     * @return Number of Customers who left.
+     */
+    public long getLeft() {
+        return leftNormal + leftGreedy;
+    }
+
+    /**
+     * Gets the number of Customers of a type who left.
+     * @param greedy true for GreedyCustomers, false for other Customers.
+     * @return Number of Customers of that type who left.
+     */
+    public long getLeft(boolean greedy) {
+        return greedy ? leftGreedy : leftNormal;
+    }
+
+    /**
+     * Gets the number of Customers who left a queue because they ran out of patience.
+     * They are not counted by getLeft.
+     * @return Number of Customers who reneged.
+     */
+    public long getReneged() {
+        return renegedNormal + renegedGreedy;
+    }
+
+    /**
+     * Gets the number of Customers of a type who left a queue because they ran out of patience.
+     * @param greedy true for GreedyCustomers, false for other Customers.
+     * @return Number of Customers of that type who reneged.
+     */
+    public long getReneged(boolean greedy) {
+        return greedy ? renegedGreedy : renegedNormal;
+    }
+
+    /**
+     * Gets the time a Server spent serving.
+     * @param id Id of Server.
+     * @return Busy time.
+     */
+    public double getBusyTime(int id) {
+        return busyTime[id];
+    }
+
+    /**
+     * Gets the time a Server spent resting.
+     * @param id Id of Server.
+     * @return Resting time.
+     */
+    public double getRestTime(int id) {
+        return restTime[id];
+    }
+
+    /**
+     * Gets the fraction of the run a Server spent serving.
+     * @param id Id of Server.
+     * @return Utilization between 0 and 1.
+     */
+    public double getUtilization(int id) {
+        return endTime == 0 ? 0 : busyTime[id] / endTime;
+    }
+
+    /**
+     * Gets the time-weighted average length of a queue over the run.
+     * @param queueId Id of queue.
+     * @return Average queue length.
+     */
+    public double getAverageQueueLength(int queueId) {
+        if (endTime == 0) {
+            return 0;
+        }
+        double area = queueArea[queueId] + queueLength[queueId] * (endTime - queueChanged[queueId]);
+        return area / endTime;
+    }
+
+    /**
+     * Gets the longest length a queue reached.
+     * @param queueId Id of queue.
+     * @return Maximum queue length.
+     */
+    public int getMaxQueueLength(int queueId) {
+        return maxQueueLength[queueId];
+    }
+
+    /**
+     * Gets the number of Events processed.
+     * @return Number of Events.
+     */
+    public long getEvents() {
+        return events;
+    }
+
+    /**
+     * Gets the time of the last Event processed.
+     * @return Simulation time at the end of the run.
+     */
+    public double getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Gets the number of Events processed per second of wall-clock time.
+     * @return Event rate, measured once the run has finished.
+     */
+    public double getEventsPerSecond() {
+        return elapsedNanos == 0 ? 0 : events * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,76 @@
+package cs2030.simulator;
+
+import java.util.Arrays;
+
+/**
+ * A segment tree over a fixed number of values that keeps the minimum of every range.
+ * Updating a value and finding the leftmost value at most a bound both take O(log n) time.
+ */
+class MinTree {
+    private final int leaves;
+    private final double[] tree;
+
+    /**
+     * Creates a MinTree where every value is initially 0.
+     * @param size Number of values.
+     */
+    MinTree(int size) {
+        int n = 1;
+        while (n < size) {
+            n *= 2;
+        }
+        leaves = n;
+        tree = new double[2 * n];
+        //unused leaves never satisfy a query
+        Arrays.fill(tree, n + size, 2 * n, Double.POSITIVE_INFINITY);
+        for (int i = n - 1; i > 0; i--) {
+            tree[i] = Math.min(tree[2 * i], tree[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Sets the value at an index.
+     * @param i Index of value.
+     * @param value New value.
+     */
+    void set(int i, double value) {
+        int node = i + leaves;
+        tree[node] = value;
+        for (node /= 2; node > 0; node /= 2) {
+            tree[node] = Math.min(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Gets the value at an index.
+     * @param i Index of value.
+     * @return Value at index i.
+     */
+    double get(int i) {
+        return tree[i + leaves];
+    }
+
+    /**
+     * Gets the smallest value.
+     * @return Smallest value, positive infinity if there are no values.
+     */
+    double min() {
+        return tree[1];
+    }
+
+    /**
+     * Finds the leftmost value that is at most a bound.
+     * @param bound Largest value accepted.
+     * @return Index of the leftmost value at most bound, -1 if there is none.
+     */
+    int firstAtMost(double bound) {
+        if (tree[1] > bound) {
+            return -1;
+        }
+        int node = 1;
+        while (node < leaves) {
+            node = tree[2 * node] <= bound ? 2 * node : 2 * node + 1;
+        }
+        return node - leaves;
+    }
+}
@@ -0,0 +1,18 @@
+package cs2030.simulator;
+
+/**
+ * An EventSink that discards every Event.
+ */
+public class NullSink implements EventSink {
+
+    @Override
+    public void log(double time, int id, boolean greedy, Status status, 
+            int serverId, boolean selfCheck) {
+        //nothing to write
+    }
+
+    @Override
+    public void flush() {
+        //nothing was written
+    }
+}
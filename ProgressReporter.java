@@ -0,0 +1,58 @@
+package cs2030.simulator;
+
+import java.io.PrintStream;
+
+/**
+ * Prints the progress of a run at a fixed wall-clock period from a daemon thread:
+ * the number of Events handled, the simulation time reached and the recent Event rate.
+ * The Metrics are read without synchronization, so the numbers are approximate.
+ */
+class ProgressReporter {
+    private final Metrics metrics;
+    private final PrintStream out;
+    private final long periodMillis;
+    private final Thread thread;
+
+    /**
+     * Creates and starts a ProgressReporter.
+     * @param metrics Metrics of the run.
+     * @param out PrintStream to print progress to.
+     * @param periodMillis Milliseconds between reports.
+     */
+    ProgressReporter(Metrics metrics, PrintStream out, long periodMillis) {
+        this.metrics = metrics;
+        this.out = out;
+        this.periodMillis = periodMillis;
+        thread = new Thread(this::report, "progress-reporter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops reporting.
+     */
+    void stop() {
+        thread.interrupt();
+    }
+
+    /**
+     * Prints a report every period until the thread is interrupted.
+     */
+    private void report() {
+        long lastEvents = 0;
+        long lastNanos = System.nanoTime();
+        try {
+            while (true) {
+                Thread.sleep(periodMillis);
+                long events = metrics.getEvents();
+                long now = System.nanoTime();
+                out.println(String.format("progress: %d events, time %.3f, %.0f events/s",
+                    events, metrics.getEndTime(), (events - lastEvents) * 1e9 / (now - lastNanos)));
+                lastEvents = events;
+                lastNanos = now;
+            }
+        } catch (InterruptedException e) {
+            //the run has finished
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package cs2030.simulator;
+
+/**
+ * The state of the queues in a store, as seen by a RoutingPolicy.
+ * Queue ids run from 1 to getQueues, and coincide with the Id of the first Server
+ * serving that queue.
+ */
+public interface QueueState {
+
+    /**
+     * Gets the number of queues.
+     * @return Number of queues.
+     */
+    int getQueues();
+
+    /**
+     * Gets the number of Customers waiting in a queue.
+     * @param queueId Id of queue.
+     * @return Length of the queue.
+     */
+    int getQueueLength(int queueId);
+
+    /**
+     * Gets the number of Servers serving a queue.
+     * @param queueId Id of queue.
+     * @return Number of Servers.
+     */
+    int getServers(int queueId);
+
+    /**
+     * Gets the earliest time one of the Servers of a queue is available.
+     * @param queueId Id of queue.
+     * @return Next available time.
+     */
+    double getNextTime(int queueId);
+
+    /**
+     * Gets the mean time a Server takes to serve a Customer.
+     * @return Mean service time.
+     */
+    double getMeanServiceTime();
+
+    /**
+     * Finds the queue with the lowest id that is not full, in O(log n) time.
+     * @param limit Maximum queue length.
+     * @return Id of queue, -1 if all queues are full.
+     */
+    int findNotFull(int limit);
+
+    /**
+     * Finds the shortest queue that is not full, the one with the lowest id if there are ties,
+     * in O(log n) time.
+     * @param limit Maximum queue length.
+     * @return Id of queue, -1 if all queues are full.
+     */
+    int findShortest(int limit);
+
+    /**
+     * Picks a queue uniformly at random from the routing stream of the run.
+     * @return Id of queue.
+     */
+    int randomQueue();
+}
@@ -0,0 +1,172 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Generates the random numbers used in a simulation.
+ * Every purpose (inter-arrival times, service times, whether to rest, resting periods,
+ * Customer types, random routing choices, thinning of scheduled arrivals and patience) has
+ * its own stream, so changing how often one purpose is used does not change the numbers
+ * generated for the others.
+ * In compatible mode, stream k is a java.util.Random seeded with seed + k, which reproduces
+ * the original sequences. Otherwise all streams come from one xoroshiro128++ generator
+ * seeded with the seed, with stream k jumped ahead k * 2^64 numbers, so no two streams
+ * of any seed overlap.
+ * Exponential numbers are generated in batches.
+ */
+class RandomGenerator {
+    private static final int BATCH = 256;
+    private static final int STREAMS = 8;
+
+    private final Exponentials interArrivalTimes;
+    private final Exponentials serviceTimes;
+    private final RandomStream rest;
+    private final Exponentials restPeriods;
+    private final RandomStream customerTypes;
+    private final RandomStream routingChoices;
+    private final RandomStream thinning;
+    private final RandomStream patience;
+
+    /**
+     * Creates a RandomGenerator in compatible mode.
+     * @param seed Seed.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     */
+    RandomGenerator(int seed, double lambda, double mu, double rho) {
+        this(seed, lambda, mu, rho, true);
+    }
+
+    /**
+     * Creates a RandomGenerator.
+     * @param seed Seed.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param compatible true to generate the same numbers as the original RandomGenerator.
+     */
+    RandomGenerator(int seed, double lambda, double mu, double rho, boolean compatible) {
+        RandomStream[] streams = new RandomStream[STREAMS];
+        if (compatible) {
+            for (int k = 0; k < STREAMS; k++) {
+                streams[k] = new LcgStream(seed + k);
+            }
+        } else {
+            XoroshiroStream stream = new XoroshiroStream(seed);
+            for (int k = 0; k < STREAMS; k++) {
+                streams[k] = new XoroshiroStream(stream);
+                stream.jump();
+            }
+        }
+        interArrivalTimes = new Exponentials(streams[0], lambda, BATCH);
+        serviceTimes = new Exponentials(streams[1], mu, BATCH);
+        rest = streams[2];
+        restPeriods = new Exponentials(streams[3], rho, BATCH);
+        customerTypes = streams[4];
+        routingChoices = streams[5];
+        thinning = streams[6];
+        patience = streams[7];
+    }
+
+    /**
+     * Generates the time until the next Customer arrives.
+     * @return Exponentially distributed time with rate lambda.
+     */
+    double genInterArrivalTime() {
+        return interArrivalTimes.next();
+    }
+
+    /**
+     * Generates the time a Server takes to serve a Customer.
+     * @return Exponentially distributed time with rate mu.
+     */
+    double genServiceTime() {
+        return serviceTimes.next();
+    }
+
+    /**
+     * Generates the number compared with the resting probability.
+     * @return Uniformly distributed number between 0 and 1.
+     */
+    double genRandomRest() {
+        return rest.nextDouble();
+    }
+
+    /**
+     * Generates the time a Server rests.
+     * @return Exponentially distributed time with rate rho.
+     */
+    double genRestPeriod() {
+        return restPeriods.next();
+    }
+
+    /**
+     * Generates the number compared with the probability of a greedy Customer.
+     * @return Uniformly distributed number between 0 and 1.
+     */
+    double genCustomerType() {
+        return customerTypes.nextDouble();
+    }
+
+    /**
+     * Generates the number a RoutingPolicy uses to pick a random queue.
+     * @return Uniformly distributed number between 0 and 1.
+     */
+    double genRoutingChoice() {
+        return routingChoices.nextDouble();
+    }
+
+    /**
+     * Generates the number that decides whether a candidate arrival is kept when thinning.
+     * @return Uniformly distributed number between 0 and 1.
+     */
+    double genThinning() {
+        return thinning.nextDouble();
+    }
+
+    /**
+     * Generates how long a Customer is willing to wait in a queue.
+     * Patience is only drawn when reneging is on, so it is not batched.
+     * @param rate Reneging rate.
+     * @return Exponentially distributed time with the given rate.
+     */
+    double genPatience(double rate) {
+        return -Math.log(patience.nextDouble()) / rate;
+    }
+
+    /**
+     * Writes the state of every stream.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException {
+        interArrivalTimes.write(out);
+        serviceTimes.write(out);
+        rest.write(out);
+        restPeriods.write(out);
+        customerTypes.write(out);
+        routingChoices.write(out);
+        thinning.write(out);
+        patience.write(out);
+    }
+
+    /**
+     * Restores the state of every stream written by write.
+     * The RandomGenerator must have been created with the same mode and rates.
+     * @param in DataInput to read from.
+     * @throws IOException if reading fails.
+     */
+    void read(DataInput in) throws IOException {
+        interArrivalTimes.read(in);
+        serviceTimes.read(in);
+        rest.read(in);
+        restPeriods.read(in);
+        customerTypes.read(in);
+        routingChoices.read(in);
+        thinning.read(in);
+        patience.read(in);
+    }
+}
@@ -0,0 +1,32 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A stream of uniformly distributed random numbers, used for a single purpose
+ * such as generating arrivals or service times.
+ */
+interface RandomStream {
+
+    /**
+     * Generates the next number of the stream.
+     * @return Uniformly distributed number between 0 (inclusive) and 1 (exclusive).
+     */
+    double nextDouble();
+
+    /**
+     * Writes the state of the stream.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException;
+
+    /**
+     * Restores the state of the stream written by write.
+     * @param in DataInput to read from.
+     * @throws IOException if reading fails.
+     */
+    void read(DataInput in) throws IOException;
+}
@@ -0,0 +1,121 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A piecewise-constant arrival rate over simulation time, e.g. for lunch peaks.
+ * Segment i starts at times[i] and lasts until the next segment starts, and the last segment
+ * lasts forever. Arrivals following the schedule are generated by thinning: candidates are
+ * generated at the largest rate, and each is kept with probability rate / largest rate.
+ */
+public class RateSchedule {
+    private final double[] starts;
+    private final double[] rates;
+    private final double maxRate;
+
+    /**
+     * Creates a RateSchedule.
+     * @param starts Start time of each segment, in increasing order, the first one 0.
+     * @param rates Arrival rate of each segment, at least one of them positive.
+     */
+    public RateSchedule(double[] starts, double[] rates) {
+        if (starts.length == 0 || starts.length != rates.length || starts[0] != 0) {
+            throw new IllegalArgumentException("schedule needs a rate for every start from 0");
+        }
+        double max = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (i > 0 && !(starts[i] > starts[i - 1])) {
+                throw new IllegalArgumentException("schedule starts are not increasing");
+            }
+            if (!(rates[i] >= 0)) {
+                throw new IllegalArgumentException("schedule rates cannot be negative");
+            }
+            max = Math.max(max, rates[i]);
+        }
+        if (max == 0) {
+            throw new IllegalArgumentException("schedule has no arrivals");
+        }
+        this.starts = starts.clone();
+        this.rates = rates.clone();
+        this.maxRate = max;
+    }
+
+    /**
+     * Gets the number of segments.
+     * @return Number of segments.
+     */
+    public int getSegments() {
+        return starts.length;
+    }
+
+    /**
+     * Gets the start time of a segment.
+     * @param segment Index of segment.
+     * @return Start time.
+     */
+    public double getStart(int segment) {
+        return starts[segment];
+    }
+
+    /**
+     * Gets the arrival rate of a segment.
+     * @param segment Index of segment.
+     * @return Arrival rate.
+     */
+    public double getRate(int segment) {
+        return rates[segment];
+    }
+
+    /**
+     * Gets the largest arrival rate, at which thinning generates candidates.
+     * @return Largest arrival rate.
+     */
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    /**
+     * Finds the segment a time falls in, searching forwards from a segment before it.
+     * @param time Simulation time.
+     * @param from Index of a segment that starts at or before time.
+     * @return Index of the segment.
+     */
+    int segment(double time, int from) {
+        while (from + 1 < starts.length && time >= starts[from + 1]) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Writes the segments.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            out.writeDouble(starts[i]);
+            out.writeDouble(rates[i]);
+        }
+    }
+
+    /**
+     * Reads segments written by write.
+     * @param in DataInput to read from.
+     * @return RateSchedule with the segments read.
+     * @throws IOException if reading fails.
+     */
+    static RateSchedule read(DataInput in) throws IOException {
+        int segments = in.readInt();
+        double[] starts = new double[segments];
+        double[] rates = new double[segments];
+        for (int i = 0; i < segments; i++) {
+            starts[i] = in.readDouble();
+            rates[i] = in.readDouble();
+        }
+        return new RateSchedule(starts, rates);
+    }
+}
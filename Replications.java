@@ -0,0 +1,117 @@
+package cs2030.simulator;
+
+import java.util.stream.IntStream;
+
+/**
+ * Runs independent replications of one store configuration, one per seed, in parallel.
+ * Each replication runs its own Simulator without a trace, on the independent random
+ * streams of non-compatible mode. The average waiting time, the number of Customers
+ * served and the number who left are aggregated across replications, in seed order,
+ * into Statistics with 95% confidence intervals.
+ */
+public class Replications {
+    private final int servers;
+    private final int selfCheck;
+    private final int limit;
+    private final int count;
+    private final double lambda;
+    private final double mu;
+    private final double rho;
+    private final double prob;
+    private final double greedyProb;
+    private final Statistic averageWaitingTime = new Statistic();
+    private final Statistic served = new Statistic();
+    private final Statistic left = new Statistic();
+
+    /**
+     * Creates Replications of a store configuration.
+     * @param servers Number of Servers.
+     * @param selfCheck Number of self-checkout counters.
+     * @param limit Maximum queue length.
+     * @param count Number of Customers.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param prob Resting probability.
+     * @param greedyProb Probability of encountering a greedy Customer.
+     */
+    public Replications(int servers, int selfCheck, int limit, int count, 
+            double lambda, double mu, double rho, double prob, double greedyProb) {
+        this.servers = servers;
+        this.selfCheck = selfCheck;
+        this.limit = limit;
+        this.count = count;
+        this.lambda = lambda;
+        this.mu = mu;
+        this.rho = rho;
+        this.prob = prob;
+        this.greedyProb = greedyProb;
+    }
+
+    /**
+     * Runs replications for consecutive seeds on the common fork-join pool
+     * and adds their results to the Statistics.
+     * @param firstSeed Seed of the first replication.
+     * @param n Number of replications.
+     */
+    public void run(int firstSeed, int n) {
+        double[][] results = IntStream.range(0, n)
+            .parallel()
+            .mapToObj(i -> replicate(firstSeed + i))
+            .toArray(double[][]::new);
+        for (double[] result : results) {
+            add(result);
+        }
+    }
+
+    /**
+     * Adds the result of a single replication to the Statistics.
+     * @param result Result returned by replicate.
+     */
+    void add(double[] result) {
+        averageWaitingTime.add(result[0]);
+        served.add(result[1]);
+        left.add(result[2]);
+    }
+
+    /**
+     * Runs a single replication.
+     * @param seed Seed for RandomGenerator object.
+     * @return Average waiting time, number of Customers served and number who left.
+     */
+    double[] replicate(int seed) {
+        Simulator sim = new Simulator(servers, selfCheck);
+        sim.setEventSink(new NullSink());
+        //compatible streams of consecutive seeds overlap, so they would not be independent
+        sim.setCompatibleRandom(false);
+        double[] arr = sim.serve(count, limit, seed, lambda, mu, rho, prob, greedyProb);
+        double customersLeft = arr[0];
+        double customersServed = sim.getMetrics().getServed();
+        double avgWaitingTime = customersServed == 0 ? 0 : arr[1] / customersServed;
+        return new double[]{avgWaitingTime, customersServed, customersLeft};
+    }
+
+    /**
+     * Gets the average waiting time of each replication.
+     * @return Statistic of average waiting times.
+     */
+    public Statistic getAverageWaitingTime() {
+        return averageWaitingTime;
+    }
+
+    /**
+     * Gets the number of Customers served in each replication.
+     * @return Statistic of Customers served.
+     */
+    public Statistic getServed() {
+        return served;
+    }
+
+    /**
+     * Gets the number of Customers who left in each replication.
+     * @return Statistic of Customers who left.
+     */
+    public Statistic getLeft() {
+        return left;
+    }
+}
@@ -0,0 +1,76 @@
+package cs2030.simulator;
+
+/**
+ * Chooses the queue an arriving Customer joins when no Server is available.
+ * A Customer leaves if the policy finds no queue.
+ */
+public interface RoutingPolicy {
+
+    /**
+     * Joins the queue with the lowest id that is not full.
+     */
+    RoutingPolicy FIRST_FIT = (queues, limit, time) -> queues.findNotFull(limit);
+
+    /**
+     * Joins the shortest queue that is not full.
+     */
+    RoutingPolicy SHORTEST_QUEUE = (queues, limit, time) -> queues.findShortest(limit);
+
+    /**
+     * Joins the shorter of two queues picked at random, in O(1) time.
+     * If both are full, joins the first queue that is not full.
+     */
+    RoutingPolicy POWER_OF_TWO = (queues, limit, time) -> {
+        int first = queues.randomQueue();
+        int second = queues.randomQueue();
+        int shorter = queues.getQueueLength(second) < queues.getQueueLength(first)
+            ? second : first;
+        return queues.getQueueLength(shorter) < limit ? shorter : queues.findNotFull(limit);
+    };
+
+    /**
+     * Joins an empty queue if there is one, otherwise a queue picked at random.
+     * If that queue is full, joins the first queue that is not full.
+     */
+    RoutingPolicy IDLE_QUEUE = (queues, limit, time) -> {
+        //an empty queue is still full when no one may queue at all
+        int empty = queues.findNotFull(Math.min(1, limit));
+        if (empty != -1) {
+            return empty;
+        }
+        int random = queues.randomQueue();
+        return queues.getQueueLength(random) < limit ? random : queues.findNotFull(limit);
+    };
+
+    /**
+     * Joins the queue that is not full with the least expected work ahead of the Customer:
+     * the time until one of its Servers is available, plus the time its Servers take
+     * to serve everyone already waiting. Takes O(n) time.
+     */
+    RoutingPolicy LEAST_WORK = (queues, limit, time) -> {
+        int best = -1;
+        double bestWork = Double.POSITIVE_INFINITY;
+        for (int q = 1; q <= queues.getQueues(); q++) {
+            int length = queues.getQueueLength(q);
+            if (length >= limit) {
+                continue;
+            }
+            double work = Math.max(0, queues.getNextTime(q) - time)
+                + length * queues.getMeanServiceTime() / queues.getServers(q);
+            if (work < bestWork) {
+                best = q;
+                bestWork = work;
+            }
+        }
+        return best;
+    };
+
+    /**
+     * Chooses a queue.
+     * @param queues State of the queues.
+     * @param limit Maximum queue length.
+     * @param time Arrival time of the Customer.
+     * @return Id of queue, -1 if the Customer leaves.
+     */
+    int route(QueueState queues, int limit, double time);
+}
@@ -8,29 +8,30 @@ package cs2030.simulator;
 class SelfCheckout extends Server {
 
     /**
-     *Queue number shared by all SelfCheckout counters.
-     * Since this value is identical for all SelfCheckout objects, 
-     * it is a static variable.
+     * Queue number shared by all SelfCheckout counters of the same store.
      */
-    private static int queueId;
-    private static boolean hasValue = false; 
+    private final int queueId;
     
     /**
      * Creates a new SelfCheckout object able to serve Customers immediately.
      * @param id ID of counter.
+     * @param queueId Queue number shared by all SelfCheckout counters.
      */
-    SelfCheckout(int id) {
+    SelfCheckout(int id, int queueId) {
         super(id);
+        this.queueId = queueId;
     }
 
 
     /**
      * Creates a new Selfcheckout object able to serve Customers after a specified time.
      * @param id ID of counter.
+     * @param queueId Queue number shared by all SelfCheckout counters.
      * @param time Time counter is available to serve Customers.
      */
-    SelfCheckout(int id,double time) {
+    SelfCheckout(int id, int queueId, double time) {
         super(id, time);
+        this.queueId = queueId;
     }
     
     /**
@@ -43,26 +44,23 @@ class SelfCheckout extends Server {
     }
 
     /**
-     * Updates counter's next available time to serve a Customer.
-     * @param time Next time the counter is available.
-     * @return new SelfCheckout object.
+     * Checks if this Server is a self-checkout counter.
+     * @return true
      */
     @Override
-    SelfCheckout setNextTime(double time) {
-        return new SelfCheckout(getID(),time);
+    boolean isSelfCheck() {
+        return true;
     }
 
     /**
-     * Sets the value of queueID, if it hasn't been set yet.
-     * @param id Queue id shared by all Self-Checkout counters.
+     * Creates a copy of this counter carrying the time of a ContractQueue event.
+     * @param time Time of the event.
+     * @return new SelfCheckout object.
      */
-    static void setQueueId(int id) {
-        if (!hasValue) {
-            hasValue = true;
-            queueId = id;
-        }
+    @Override
+    SelfCheckout setNextTime(double time) {
+        return new SelfCheckout(getID(), queueId, time);
     }
-        
 
     /**
      * Generates resting probability. Since this is a Self-checkout counter, it never rests.
@@ -27,8 +27,10 @@ class Server {
     }
     
     /**
-     * Gets next available time this Server can serve a Customer.
-     * @return Time server can serve the next Customer.
+     * Gets the time carried by this Server.
+     * Next available times live in the ServerIndex, so the Servers held by the Simulator
+     * always report 0; only the copies made by setNextTime for a ContractQueue carry a time.
+     * @return Time carried by this Server.
      */
     double getTime() {
         return time;
@@ -55,21 +57,21 @@ class Server {
     }
 
     /**
-     * Sets the next available time of this Server.
-     * @param time Next available time.
-     * @return A new Server with the next available time updated.
+     * Checks if this Server is a self-checkout counter.
+     * @return false, since this is a human Server.
      */
-    Server setNextTime(double time) {
-        return new Server(id, time);
+    boolean isSelfCheck() {
+        return false;
     }
 
     /**
-     * Checks if Server is available to serve at the curent time.
-     * @param currentTime current time.
-     * @return true if Server is available.
+     * Creates a copy of this Server carrying a time.
+     * Only a ContractQueue uses this, to order an event that has no Customer.
+     * @param time Time of the event.
+     * @return A new Server carrying the time.
      */
-    boolean canServe(double currentTime) {
-        return time <= currentTime;
+    Server setNextTime(double time) {
+        return new Server(id, time);
     }
 
     /**
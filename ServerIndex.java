@@ -0,0 +1,153 @@
+package cs2030.simulator;
+
+/**
+ * An index over Servers and queues that answers the routing questions asked on every arrival
+ * in O(log n) time instead of scanning every Server.
+ * Server next available times and queue lengths are kept in MinTrees, and must be updated
+ * whenever a Server's next available time or a queue's length changes.
+ * Queue ids coincide with the Id of the first Server serving that queue.
+ * Every queue has one Server, except the last one which has all the remaining Servers.
+ */
+class ServerIndex implements QueueState {
+    private final MinTree nextTimes;
+    private final MinTree queueLengths;
+    private final int servers;
+    private final int queues;
+    private RandomGenerator rd;
+    private double meanServiceTime;
+
+    /**
+     * Creates a ServerIndex where every Server is available at time 0 and every queue is empty.
+     * @param servers Number of Servers.
+     * @param queues Number of queues with at least one Server.
+     */
+    ServerIndex(int servers, int queues) {
+        nextTimes = new MinTree(servers);
+        queueLengths = new MinTree(queues);
+        this.servers = servers;
+        this.queues = queues;
+    }
+
+    /**
+     * Sets the RandomGenerator and service rate of the current run.
+     * @param rd RandomGenerator whose routing stream picks random queues.
+     * @param mu Service rate.
+     */
+    void setRun(RandomGenerator rd, double mu) {
+        this.rd = rd;
+        this.meanServiceTime = 1 / mu;
+    }
+
+    /**
+     * Updates the next available time of a Server.
+     * @param id Id of Server.
+     * @param time Next available time.
+     */
+    void setNextTime(int id, double time) {
+        nextTimes.set(id - 1, time);
+    }
+
+    /**
+     * Gets the next available time of a Server.
+     * @param id Id of Server.
+     * @return Next available time.
+     */
+    double getServerTime(int id) {
+        return nextTimes.get(id - 1);
+    }
+
+    /**
+     * Updates the length of a queue.
+     * @param queueId Id of queue.
+     * @param length Number of Customers in the queue.
+     */
+    void setQueueLength(int queueId, int length) {
+        queueLengths.set(queueId - 1, length);
+    }
+
+    /**
+     * Marks a queue as closed, so that it counts as full whatever the limit.
+     * setQueueLength opens it again.
+     * @param queueId Id of queue.
+     */
+    void closeQueue(int queueId) {
+        queueLengths.set(queueId - 1, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Marks every queue as empty.
+     */
+    void clearQueues() {
+        for (int i = 0; i < queues; i++) {
+            queueLengths.set(i, 0);
+        }
+    }
+
+    /**
+     * Marks every Server as available at time 0.
+     */
+    void clearServers() {
+        for (int i = 0; i < servers; i++) {
+            nextTimes.set(i, 0);
+        }
+    }
+
+    /**
+     * Finds the Server with the lowest Id that can serve at the current time.
+     * @param currentTime current time.
+     * @return Id of Server, -1 if all Servers are busy.
+     */
+    int findIdle(double currentTime) {
+        int i = nextTimes.firstAtMost(currentTime);
+        return i == -1 ? -1 : i + 1;
+    }
+
+    @Override
+    public int getQueues() {
+        return queues;
+    }
+
+    @Override
+    public int getQueueLength(int queueId) {
+        return (int) queueLengths.get(queueId - 1);
+    }
+
+    @Override
+    public int getServers(int queueId) {
+        return queueId == queues ? servers - queues + 1 : 1;
+    }
+
+    @Override
+    public double getNextTime(int queueId) {
+        double next = Double.POSITIVE_INFINITY;
+        for (int i = queueId - 1; i < queueId - 1 + getServers(queueId); i++) {
+            next = Math.min(next, nextTimes.get(i));
+        }
+        return next;
+    }
+
+    @Override
+    public double getMeanServiceTime() {
+        return meanServiceTime;
+    }
+
+    @Override
+    public int randomQueue() {
+        return 1 + (int) (rd.genRoutingChoice() * queues);
+    }
+
+    @Override
+    public int findNotFull(int limit) {
+        int i = queueLengths.firstAtMost(limit - 1);
+        return i == -1 ? -1 : i + 1;
+    }
+
+    @Override
+    public int findShortest(int limit) {
+        double shortest = queueLengths.min();
+        if (shortest >= limit) {
+            return -1;
+        }
+        return queueLengths.firstAtMost(shortest) + 1;
+    }
+}
@@ -0,0 +1,55 @@
+package cs2030.simulator;
+
+import java.util.Arrays;
+
+/**
+ * Recorded service times of the Customers who have arrived but not been served or left,
+ * looked up by Customer Id. Ids are handed out in order of arrival, so the times are kept
+ * in a ring buffer over the range of Ids from the earliest Customer still present,
+ * which only grows while a Customer stays as many arrivals as the buffer holds.
+ */
+class ServiceTimes {
+    private double[] times = new double[64];
+    private int first = 1;
+    private int next = 1;
+
+    /**
+     * Records the service time of the next arriving Customer.
+     * @param id Id of Customer, one more than the previous one.
+     * @param time Service time.
+     */
+    void put(int id, double time) {
+        if (id - first >= times.length) {
+            grow();
+        }
+        times[id & (times.length - 1)] = time;
+        next = id + 1;
+    }
+
+    /**
+     * Removes the service time of a Customer who is served or leaves.
+     * @param id Id of Customer.
+     * @return Service time.
+     */
+    double take(int id) {
+        int i = id & (times.length - 1);
+        double time = times[i];
+        times[i] = Double.NaN;
+        while (first < next && Double.isNaN(times[first & (times.length - 1)])) {
+            first++;
+        }
+        return time;
+    }
+
+    /**
+     * Doubles the buffer, moving every time to its slot in the larger buffer.
+     */
+    private void grow() {
+        double[] larger = new double[times.length * 2];
+        Arrays.fill(larger, Double.NaN);
+        for (int id = first; id < next; id++) {
+            larger[id & (larger.length - 1)] = times[id & (times.length - 1)];
+        }
+        times = larger;
+    }
+}
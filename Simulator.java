@@ -1,19 +1,98 @@
 package cs2030.simulator;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.LinkedList;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Optional;
-import java.util.PriorityQueue;
 
 /**
  * A class for discrete event simulation.
  * Simulates Customers arriving and being served by Servers.
+ * With the default settings, streamed arrivals and an EventHeap, a run does not allocate
+ * objects per Event and its heap only grows with the number of Servers and the maximum
+ * queue length, whatever the number of Customers: Server times live in the ServerIndex,
+ * queues are ring buffers and at most one arrival is pending. 10,000 Servers with
+ * tens of millions of Customers fit in a 256 MB heap; Benchmark scale checks this.
+ * SteadyState and TimeSeries grow with the length of the run, and a ContractQueue or
+ * pre-loaded arrivals with the number of Customers.
  */
 public class Simulator {
+    private static final int SNAPSHOT_MAGIC = 0x44455353;
+    private static final int SNAPSHOT_VERSION = 6;
+
+    /**
+     * Servers in order of Id. Their next available times are kept in index.
+     */
     private final List<Server> serverList;
-    private final HashMap<Integer, List<Customer>> queue;
+    /**
+     * All queues in the store, indexed by queue id. Index 0 is unused.
+     */
+    private final CustomerQueue[] queue;
+    private final ServerIndex index;
+    /**
+     * RoutingPolicy of each type of Customer, indexed by type tag.
+     */
+    private final RoutingPolicy[] routing = {
+        RoutingPolicy.FIRST_FIT, RoutingPolicy.SHORTEST_QUEUE
+    };
+    private boolean streamArrivals = true;
+    private boolean primitiveEvents = true;
+    private boolean compatibleRandom = true;
+    private EventSink sink = new TextSink(System.out);
+    private Metrics metrics;
+    private double checkpointTime = Double.NaN;
+    private Path checkpointPath;
+    private double steadyStatePrecision = -1;
+    private SteadyState steadyState;
+    private double timeSeriesInterval = Double.NaN;
+    private TimeSeries timeSeries;
+    private LeaveListener leaveListener;
+    private PrintStream progressOut;
+    private long progressMillis;
+    private ProgressReporter progress;
+    private EventLoopStats stats;
+    private RateSchedule schedule;
+    private double renegingRate;
+    //Id of Server, start and end time of every closure
+    private final List<double[]> closures = new ArrayList<>();
+
+    //state of the current run
+    private int count;
+    private int limit;
+    private int seed;
+    private double lambda;
+    private double mu;
+    private double rho;
+    private double prob;
+    private double greedyProb;
+    private RandomGenerator rd;
+    private EventQueue events;
+    private ArrivalSource arrivals;
+    //recorded service times when replaying an ArrivalTrace, otherwise null
+    private ServiceTimes serviceTimes;
+    private ArrivalTrace trace;
+    //number of Customers in all queues
+    private int waiting;
+    //number of Customers who arrived from other stores
+    private int transfers;
+    //number of closures each Server is in, indexed by Server Id
+    private int[] closed;
+    //number of Servers of each queue that are not closed, indexed by queue id
+    private int[] openServers;
+    //true if the time booked for each Server is a rest rather than a service, by Server Id
+    private boolean[] resting;
+    //queue and ticket of every waiting Customer if reneging is on, otherwise null
+    private Tickets tickets;
 
     /**
      * Creates a Simulator.
@@ -21,11 +100,11 @@ public class Simulator {
      */
     public Simulator(int servers) {
         serverList = new ArrayList<>();
-        queue = new HashMap<>();
+        queue = new CustomerQueue[servers + 1];
         for (int i = 1; i <= servers; i++) {
             serverList.add(new Server(i));
-            queue.put(i, new LinkedList<Customer>());
         }
+        index = new ServerIndex(servers, servers);
     }
 
     /**
@@ -35,19 +114,210 @@ public class Simulator {
      */
     public Simulator(int servers, int selfCheck) {
         serverList = new ArrayList<>();
-        queue = new HashMap<>();
+        //leave room for a unified queue for self checkout counters
+        queue = new CustomerQueue[servers + 2];
         for (int i = 1; i <= servers; i++) {
             serverList.add(new Server(i));
-            queue.put(i, new LinkedList<Customer>());
         }
-        //add a unified queue for self checkout counters
-        queue.put(servers + 1, new LinkedList<Customer>());
-        //instantiate queue number for all Selfcheckout counters
-        SelfCheckout.setQueueId(servers + 1);
-        //create self checkout counters
+        //create self checkout counters, all sharing queue number servers + 1
         for (int i = servers + 1; i <= servers + selfCheck; i++) {
-            serverList.add(new SelfCheckout(i));
+            serverList.add(new SelfCheckout(i, servers + 1));
         }
+        index = new ServerIndex(servers + selfCheck, selfCheck > 0 ? servers + 1 : servers);
+    }
+
+    /**
+     * Sets how arrivals are scheduled.
+     * When streaming, only the next arrival is kept in the PriorityQueue and it is scheduled
+     * when the previous arrival is handled, so the PriorityQueue only grows with the number
+     * of Servers and waiting Customers. Otherwise all arrivals are added before the
+     * simulation starts. Both modes produce the same Events for a given seed.
+     * @param streamArrivals true to stream arrivals, false to add all of them up front.
+     */
+    public void setStreamArrivals(boolean streamArrivals) {
+        this.streamArrivals = streamArrivals;
+    }
+
+    /**
+     * Sets which EventQueue holds the pending Events.
+     * The primitive EventHeap does not allocate objects per Event, while the ContractQueue
+     * stores a Contract for every Event in a PriorityQueue ordered by ContractComparator.
+     * Both produce the same Events for a given seed.
+     * @param primitiveEvents true to use an EventHeap, false to use a ContractQueue.
+     */
+    public void setPrimitiveEvents(boolean primitiveEvents) {
+        this.primitiveEvents = primitiveEvents;
+    }
+
+    /**
+     * Sets which random numbers are generated for a seed.
+     * In compatible mode, the numbers are the same as those of the original RandomGenerator.
+     * Otherwise every purpose gets a non-overlapping xoroshiro128++ stream, so that
+     * replications with different seeds are independent.
+     * @param compatibleRandom true to reproduce the original random numbers.
+     */
+    public void setCompatibleRandom(boolean compatibleRandom) {
+        this.compatibleRandom = compatibleRandom;
+    }
+
+    /**
+     * Sets where the trace of Events is logged.
+     * By default the trace is written to System.out as text.
+     * @param sink EventSink to log Events to, e.g. a NullSink to discard the trace.
+     */
+    public void setEventSink(EventSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Sets a simulation time at which serve writes a snapshot of the whole simulation to a file,
+     * just before handling the first Event after that time. The run then carries on.
+     * Calling resume with the snapshot finishes the run with exactly the same results.
+     * @param time Simulation time of the snapshot.
+     * @param path File to write the snapshot to.
+     */
+    public void setCheckpoint(double time, Path path) {
+        this.checkpointTime = time;
+        this.checkpointPath = path;
+    }
+
+    /**
+     * Sets how Customers choose a queue to join when no Server is available.
+     * By default Customers join the first queue that is not full, and GreedyCustomers
+     * join the shortest queue. Policies that pick queues at random draw from their own
+     * random number stream, so the other random numbers of a seed do not change.
+     * @param normal RoutingPolicy of Customers.
+     * @param greedy RoutingPolicy of GreedyCustomers.
+     */
+    public void setRouting(RoutingPolicy normal, RoutingPolicy greedy) {
+        routing[Customer.NORMAL] = normal;
+        routing[Customer.GREEDY] = greedy;
+    }
+
+    /**
+     * Sets an arrival rate that changes over time for the following runs of serve,
+     * e.g. a lunchtime peak. The arrival rate given to serve is then ignored.
+     * Arrivals are generated by thinning, which draws from its own random number stream.
+     * @param schedule RateSchedule, or null for the constant arrival rate given to serve.
+     */
+    public void setArrivalSchedule(RateSchedule schedule) {
+        this.schedule = schedule;
+    }
+
+    /**
+     * Closes a Server for a period in the following runs, e.g. for a shift change.
+     * A closing Server finishes serving its current Customer and then takes no one else,
+     * not even after resting. Once every Server of a queue is closed, Customers waiting
+     * in it join another queue in order, keeping their place in time, or are served
+     * right away if a Server is idle, or leave if every queue is full.
+     * Closures of the same Server may overlap.
+     * @param serverId Id of Server.
+     * @param from Time the Server closes.
+     * @param to Time the Server opens again, infinity to keep it closed.
+     */
+    public void addClosure(int serverId, double from, double to) {
+        if (serverId < 1 || serverId > serverList.size() || !(from < to)) {
+            throw new IllegalArgumentException("invalid closure of server " + serverId);
+        }
+        closures.add(new double[]{serverId, from, to});
+    }
+
+    /**
+     * Removes every closure added by addClosure.
+     */
+    public void clearClosures() {
+        closures.clear();
+    }
+
+    /**
+     * Lets waiting Customers run out of patience in the following runs.
+     * Every Customer who joins a queue draws an exponentially distributed patience from its
+     * own random number stream, and leaves the queue if he is still waiting when it runs out.
+     * His deadline stays pending once he is served, and is skipped when it comes up, so the
+     * EventQueue also grows with the number of Customers served within a patience.
+     * Customers who renege are counted by Metrics.getReneged, not by getLeft.
+     * @param rate Reneging rate, one over the mean patience, or 0 for endless patience.
+     */
+    public void setReneging(double rate) {
+        this.renegingRate = rate;
+    }
+
+    /**
+     * Turns on steady-state estimation for the following runs of serve.
+     * The warm-up period is discarded with MSER-5, and batch means give confidence intervals
+     * for the waiting time and queue length, available from getSteadyState.
+     * If a precision is given, the run stops as soon as the half-width of the waiting time
+     * confidence interval is within that fraction of its mean, leaving the remaining
+     * Customers unsimulated. The results of serve and the Metrics then cover only the Events
+     * handled so far.
+     * @param precision Target relative half-width, e.g. 0.05, or 0 to simulate every Customer.
+     */
+    public void setSteadyState(double precision) {
+        this.steadyStatePrecision = precision;
+    }
+
+    /**
+     * Gets the steady-state estimates of the current or most recent run of serve.
+     * @return SteadyState, null if steady-state estimation is off.
+     */
+    public SteadyState getSteadyState() {
+        return steadyState;
+    }
+
+    /**
+     * Turns on time series of the queue length and Server states for the following runs of
+     * serve, available from getTimeSeries. Each sample is the time-weighted average over a
+     * fixed interval of simulation time.
+     * @param interval Simulation time covered by each sample, or NaN to turn time series off.
+     */
+    public void setTimeSeries(double interval) {
+        this.timeSeriesInterval = interval;
+    }
+
+    /**
+     * Gets the time series of the current or most recent run of serve.
+     * @return TimeSeries, null if time series are off.
+     */
+    public TimeSeries getTimeSeries() {
+        return timeSeries;
+    }
+
+    /**
+     * Sets a PrintStream to print the progress of the following runs to while they run,
+     * e.g. System.err, so that long runs can be followed.
+     * @param out PrintStream to print progress to, or null to print nothing.
+     * @param periodMillis Milliseconds of wall-clock time between reports.
+     */
+    public void setProgress(PrintStream out, long periodMillis) {
+        this.progressOut = out;
+        this.progressMillis = periodMillis;
+    }
+
+    /**
+     * Gets the counters and timers of the event loop of the current or most recent run.
+     * They are only collected if the JVM was started with -Dcs2030.simulator.instrument=true,
+     * and are also available over JMX while the run is in progress.
+     * @return EventLoopStats, null if instrumentation is disabled.
+     */
+    public EventLoopStats getEventLoopStats() {
+        return stats;
+    }
+
+    /**
+     * Sets who is told about Customers leaving because every queue is full.
+     * Only Customers generated by this Simulator are reported, not those added by addTransfer.
+     * @param leaveListener LeaveListener, or null to report no one.
+     */
+    void setLeaveListener(LeaveListener leaveListener) {
+        this.leaveListener = leaveListener;
+    }
+
+    /**
+     * Gets the Metrics of the current or most recent run of serve.
+     * @return Metrics, null if serve has not been called.
+     */
+    public Metrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -56,17 +326,40 @@ public class Simulator {
      * @return first available Server, null if all are unavailable.
      */
     public Server findServer(double currentTime) {
-        for (int i = 0; i < serverList.size(); i++) {
-            if (serverList.get(i).canServe(currentTime)) {
-                return serverList.get(i);
-            }
+        int id = index.findIdle(currentTime);
+        return id == -1 ? null : serverList.get(id - 1);
+    }
+
+    /**
+     * Records a Customer being served.
+     * @param waitingTime Time the Customer spent in a queue.
+     */
+    private void served(double waitingTime) {
+        metrics.served(waitingTime);
+        if (steadyState != null) {
+            steadyState.addWait(waitingTime);
+        }
+    }
+
+    /**
+     * Records that the length of a queue has changed.
+     * @param queueId Id of queue.
+     * @param time Time of the change.
+     */
+    private void queueChanged(int queueId, double time) {
+        int length = queue[queueId].size();
+        if (openServers[queueId] > 0) {
+            index.setQueueLength(queueId, length);
+        }
+        metrics.queueLength(queueId, length, time);
+        if (timeSeries != null) {
+            timeSeries.queueLength(waiting, time);
         }
-        return null;
     }
 
     /**
      * Simulate the flow of Events when Customers arrive and add all Events to
-     * PriorityQueue pq.
+     * the EventQueue.
      * @param count Number of Customers to be served.
      * @param limit Maximum queue length.
      * @param seed Seed for RandomGenerator object.
@@ -76,119 +369,764 @@ public class Simulator {
      * @param prob Resting probability.
      * @param greedyProb Probability of encountering a greedy Customer.
      * @return double Array which stores the number of Customers who left and total waiting time.
+     *     Customers who reneged are not counted as having left, so with reneging on, the
+     *     number served is not count minus left: get it from getMetrics().getServed().
      */
     public double[] serve(int count, int limit, int seed, double lambda, 
             double mu, double rho, double prob, double greedyProb) {
-        RandomGenerator rd = new RandomGenerator(seed, lambda, mu, rho);
-        PriorityQueue<Contract> contracts = new PriorityQueue<>(1, new ContractComparator());
-        double totalWaitingTime = 0.00;
-        double customersLeft = 0.00;
-        double currentTime = 0;
-        for (int i = 1; i <= count; i++) {
-            double greedy = rd.genCustomerType();
-            boolean isGreedy = greedy < greedyProb;
-            Customer c = isGreedy ? new GreedyCustomer(i, Status.ARRIVED, currentTime) 
-                : new Customer(i, Status.ARRIVED, currentTime);
-            Contract contract = new Contract(c);
-            contracts.add(contract);
-            currentTime += rd.genInterArrivalTime();
-        }
-        while (contracts.size() > 0) {
-            Contract curr = contracts.poll();
-            Customer c = curr.getCustomer();
-            Status status = curr.getStatus();
-            if (status == Status.ARRIVED) {
-                double arrivalTime = c.getTime();
-                System.out.println(String.format("%.3f %s arrives", arrivalTime, c));
-                Server server = findServer(arrivalTime);
-                //if Server is available, Customer is immediately served.
-                if (server != null) {
-                    Server s = server;
-                    System.out.println(String.format("%.3f %s served by %s", arrivalTime, c, s));
-                    c = c.setStatus(Status.SERVED, arrivalTime);
-                    curr = new Contract(c, s);
-                    contracts.add(curr);
-                    continue;
-                } else {
-                    //if no Server is available, Customer will find the queue he wants to join 
-                    //according to his preference (greedy or non-greedy).
-                    Server s = c.findServer(serverList,queue,limit);
-                    if (s != null) {
-                        System.out.println(String.format("%.3f %s waits to be served by %s", 
-                            arrivalTime, c, s));
-                        c = c.setStatus(Status.WAIT, arrivalTime);
-                        curr = new Contract(c,s);
-                        contracts.add(curr);
-                        continue;
-                    }
-                    //nothing left to do, CUstomer leaves.
-                    System.out.println(String.format("%.3f %s leaves", arrivalTime, c));
-                    customersLeft++;
+        start(count, limit, seed, lambda, mu, rho, prob, greedyProb);
+        runUntil(Double.POSITIVE_INFINITY);
+        return finish();
+    }
+
+    /**
+     * Runs serve until a simulation time and pauses it there, so that variants of the run
+     * can carry on from that point with resume. The Metrics of this Simulator cover the run
+     * up to the Fork.
+     * @param time Simulation time of the Fork. Every Event before it is handled.
+     * @param count Number of Customers to be served.
+     * @param limit Maximum queue length.
+     * @param seed Seed for RandomGenerator object.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param prob Resting probability.
+     * @param greedyProb Probability of encountering a greedy Customer.
+     * @return Fork of the run.
+     */
+    public Fork fork(double time, int count, int limit, int seed, double lambda,
+            double mu, double rho, double prob, double greedyProb) {
+        start(count, limit, seed, lambda, mu, rho, prob, greedyProb);
+        runUntil(time);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeState(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finish();
+        return new Fork(bytes.toByteArray(), time, limit, prob, greedyProb);
+    }
+
+    /**
+     * Simulates recorded Customers instead of random ones.
+     * Arrival times, service times and Customer types are streamed from a CSV or binary
+     * ArrivalTrace, one Customer at a time, so files of any length can be replayed.
+     * Whether and how long Servers rest is still random.
+     * Runs that replay a file cannot be checkpointed.
+     * @param path CSV or binary file of recorded Customers, in order of arrival.
+     * @param limit Maximum queue length.
+     * @param seed Seed for RandomGenerator object.
+     * @param mu Service rate assumed by RoutingPolicies that estimate the work in a queue.
+     * @param rho Resting rate.
+     * @param prob Resting probability.
+     * @return double Array which stores the number of Customers who left and total waiting time,
+     *     as returned by serve.
+     */
+    public double[] replay(Path path, int limit, int seed, double mu, double rho, double prob) {
+        trace = new ArrivalTrace(path);
+        try {
+            start(Integer.MAX_VALUE, limit, seed, 0, mu, rho, prob, 0);
+            runUntil(Double.POSITIVE_INFINITY);
+            return finish();
+        } finally {
+            trace.close();
+            trace = null;
+        }
+    }
+
+    /**
+     * Sets up a run of serve without handling any Events.
+     * The run is carried on with runUntil and ended with finish.
+     * @param count Number of Customers to be served.
+     * @param limit Maximum queue length.
+     * @param seed Seed for RandomGenerator object.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param prob Resting probability.
+     * @param greedyProb Probability of encountering a greedy Customer.
+     */
+    void start(int count, int limit, int seed, double lambda, 
+            double mu, double rho, double prob, double greedyProb) {
+        this.count = count;
+        this.limit = limit;
+        this.seed = seed;
+        this.lambda = schedule == null || trace != null ? lambda : schedule.getMaxRate();
+        this.mu = mu;
+        this.rho = rho;
+        this.prob = prob;
+        this.greedyProb = greedyProb;
+        rd = new RandomGenerator(seed, this.lambda, mu, rho, compatibleRandom);
+        index.setRun(rd, mu);
+        events = primitiveEvents ? new EventHeap() : new ContractQueue();
+        serviceTimes = trace == null ? null : new ServiceTimes();
+        arrivals = trace == null ? new ArrivalSource(rd, count, greedyProb, schedule)
+            : new ArrivalSource(trace, serviceTimes);
+        metrics = new Metrics(serverList.size(), queue.length - 1);
+        steadyState = steadyStatePrecision < 0 ? null : new SteadyState(steadyStatePrecision);
+        timeSeries = Double.isNaN(timeSeriesInterval) ? null
+            : new TimeSeries(timeSeriesInterval, serverList.size());
+        for (int i = 1; i < queue.length; i++) {
+            queue[i] = new CustomerQueue(limit);
+        }
+        index.clearQueues();
+        index.clearServers();
+        waiting = 0;
+        transfers = 0;
+        closed = new int[serverList.size() + 1];
+        resting = new boolean[serverList.size() + 1];
+        openServers = new int[queue.length];
+        for (Server s : serverList) {
+            openServers[s.getQueueId()]++;
+        }
+        tickets = renegingRate > 0 ? new Tickets() : null;
+        scheduleClosures(0);
+        if (streamArrivals) {
+            if (arrivals.hasNext()) {
+                arrivals.addNext(events);
+            }
+        } else {
+            while (arrivals.hasNext()) {
+                arrivals.addNext(events);
+            }
+        }
+        begin();
+    }
+
+    /**
+     * Adds the CLOSE and OPEN Events of every closure that starts at or after a time.
+     * @param from Time from which closures are scheduled.
+     */
+    private void scheduleClosures(double from) {
+        for (double[] c : closures) {
+            if (c[1] < from) {
+                continue;
+            }
+            Server s = serverList.get((int) c[0] - 1);
+            events.add(c[1], -1, false, Status.CLOSE, s);
+            if (c[2] < Double.POSITIVE_INFINITY) {
+                events.add(c[2], -1, false, Status.OPEN, s);
+            }
+        }
+    }
+
+    /**
+     * Gets the time of the next Event to handle.
+     * @return Time of the next Event, infinity if the run is over.
+     */
+    double nextTime() {
+        if (events.isEmpty() || steadyState != null && steadyState.isPrecise()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return events.peekTime();
+    }
+
+    /**
+     * Adds a Customer who arrives from another store.
+     * The Customer gets the next Id after the Customers generated by this Simulator.
+     * @param time Arrival time.
+     * @param greedy true if the Customer is greedy.
+     */
+    void addTransfer(double time, boolean greedy) {
+        transfers++;
+        events.add(time, count + transfers, greedy, Status.ARRIVED, null);
+    }
+
+    /**
+     * Handles every Event before a time.
+     * @param end Time to stop at, exclusive.
+     */
+    void runUntil(double end) {
+        while (nextTime() < end) {
+            if (checkpointPath != null && events.peekTime() > checkpointTime) {
+                writeSnapshot(checkpointPath);
+                checkpointPath = null;
+            }
+            handle();
+        }
+    }
+
+    /**
+     * Ends the current run.
+     * @return double Array which stores the number of Customers who left and total waiting time.
+     */
+    double[] finish() {
+        sink.flush();
+        metrics.finish();
+        clipBooked(metrics.getEndTime());
+        if (progress != null) {
+            progress.stop();
+            progress = null;
+        }
+        if (stats != null) {
+            stats.finish();
+        }
+        if (timeSeries != null) {
+            timeSeries.finish(metrics.getEndTime());
+        }
+        return new double[]{metrics.getLeft(), metrics.getTotalWaitingTime()};
+    }
+
+    /**
+     * Takes off the busy and resting time booked after the end of a run that stopped early,
+     * e.g. at a Fork or when the steady state was reached. Service and rest are booked in
+     * full when they start, so a run that handles every Event has nothing to take off.
+     * @param endTime Time of the last Event handled.
+     */
+    private void clipBooked(double endTime) {
+        for (Server s : serverList) {
+            double until = index.getServerTime(s.getID());
+            if (until > endTime && until != Double.POSITIVE_INFINITY) {
+                metrics.clip(s.getID(), until, resting[s.getID()]);
+                if (timeSeries != null) {
+                    timeSeries.clip(endTime, until, resting[s.getID()]);
                 }
-            } else if (status == Status.WAIT) { 
-                //if Customer is waiting, add him to the queue of the server
-                Server s = curr.getServer();
-                queue.get(s.getQueueId()).add(c);
-            } else if (status == Status.SERVED) {
-                //if Customer is served, generate time he is done serving
-                // and update the Server availabilty
-                Server s = curr.getServer();
-                double endTime = c.getTime() + rd.genServiceTime();
-                s = s.setNextTime(endTime);
-                //update serverList
-                serverList.set(s.getID() - 1, s);
-                c = c.setStatus(Status.DONE,endTime);
-                Contract newContract = new Contract(c,s);
-                contracts.add(newContract);
-            } else if (status == Status.DONE) {
-                //if Customer is done serving,
-                //generate probability Server will rest,
-                //and if the Server does not rest,
-                //Serve the next Customer in line.
-                //Otherwise update Server availability to time he is done resting.
-                Server s = curr.getServer();
-                double endTime = s.getTime();
-                System.out.println(String.format("%.3f %s done serving by %s", endTime, c, s));
-                double restProb = s.genRestProb(rd);
-                if (restProb != -1 && restProb < prob) {    
-                    double nextTime = endTime + rd.genRestPeriod();
-                    s = s.setNextTime(nextTime); //rest until nextTime
-                    serverList.set(s.getID() - 1, s);
-                    //create new contract with resting Server
-                    Contract newContract = new Contract(s);
-                    contracts.add(newContract);
-                    continue;
+            }
+        }
+    }
+
+    /**
+     * Starts the wall clock, the instrumentation and the progress reports of a run.
+     */
+    private void begin() {
+        metrics.start();
+        stats = null;
+        if (EventLoopStats.ENABLED) {
+            stats = new EventLoopStats();
+            stats.start();
+        }
+        if (progressOut != null) {
+            progress = new ProgressReporter(metrics, progressOut, progressMillis);
+        }
+    }
+
+    /**
+     * Handles the next Event, timing it if instrumentation is enabled.
+     */
+    private void handle() {
+        if (!EventLoopStats.ENABLED) {
+            dispatch();
+            return;
+        }
+        int pending = events.size();
+        long started = System.nanoTime();
+        dispatch();
+        stats.event(events.getStatus(), events.getTime(), pending, System.nanoTime() - started);
+    }
+
+    /**
+     * Handles the next Event.
+     */
+    private void dispatch() {
+        events.poll();
+        Status status = events.getStatus();
+        if (status == Status.CLOSE) {
+            close(serverList.get(events.getServerID() - 1), events.getTime());
+            return;
+        } else if (status == Status.OPEN) {
+            open(serverList.get(events.getServerID() - 1), events.getTime());
+            return;
+        } else if (status == Status.RENEGE && !tickets.contains(events.getID())) {
+            //the Customer was served or left before his patience ran out
+            return;
+        }
+        metrics.event(events.getTime());
+        int id = events.getID();
+        boolean isGreedy = events.isGreedy();
+        if (status == Status.ARRIVED) {
+            //schedule the next arrival only once this one is handled
+            if (streamArrivals && id <= count && arrivals.hasNext()) {
+                arrivals.addNext(events);
+            }
+            double arrivalTime = events.getTime();
+            if (steadyState != null) {
+                steadyState.addQueueLength(waiting);
+            }
+            sink.log(arrivalTime, id, isGreedy, Status.ARRIVED, 0, false);
+            Server server = findServer(arrivalTime);
+            //if Server is available, Customer is immediately served.
+            if (server != null) {
+                Server s = server;
+                sink.log(arrivalTime, id, isGreedy, Status.SERVED, s.getID(), s.isSelfCheck());
+                events.add(arrivalTime, id, isGreedy, Status.SERVED, s);
+                served(0);
+                return;
+            } else {
+                //if no Server is available, Customer will find the queue he wants to join 
+                //according to the RoutingPolicy of his type (greedy or non-greedy).
+                long routed = EventLoopStats.ENABLED ? System.nanoTime() : 0;
+                int queueId = routing[Customer.tag(isGreedy)].route(index, limit, arrivalTime);
+                if (EventLoopStats.ENABLED) {
+                    stats.routed(System.nanoTime() - routed);
                 }
-                if (queue.get(s.getQueueId()).size() > 0) {
-                    List<Customer> next = queue.get(s.getQueueId());
-                    Customer nextInLine = next.remove(0);
-                    queue.put(s.getID(), next);
-                    totalWaitingTime += endTime - nextInLine.getTime();
-                    System.out.println(String.format("%.3f %s served by %s", 
-                        endTime, nextInLine, s));
-                    nextInLine = nextInLine.setStatus(Status.SERVED, endTime); 
-                    Contract newContract = new Contract(nextInLine, s);
-                    contracts.add(newContract);
+                Server s = queueId == -1 ? null : serverList.get(queueId - 1);
+                if (s != null) {
+                    sink.log(arrivalTime, id, isGreedy, Status.WAIT, 
+                        s.getID(), s.isSelfCheck());
+                    events.add(arrivalTime, id, isGreedy, Status.WAIT, s);
+                    return;
                 }
-            } else if (status == Status.BACK) {
-                //if Server is back from resting, serve the next Customer in line.
-                Server s = curr.getServer();
-                double endTime = s.getTime();
-                if (queue.get(s.getQueueId()).size() > 0) {
-                    List<Customer> next = queue.get(s.getQueueId());
-                    Customer nextInLine = next.remove(0);
-                    queue.put(s.getID(), next);
-                    totalWaitingTime += endTime - nextInLine.getTime();
-                    System.out.println(String.format("%.3f %s served by %s", 
-                        endTime, nextInLine, s));
-                    nextInLine = nextInLine.setStatus(Status.SERVED, endTime);
-                    Contract newContract = new Contract(nextInLine, s);
-                    contracts.add(newContract);
+                //nothing left to do, CUstomer leaves.
+                leave(arrivalTime, id, isGreedy);
+            }
+        } else if (status == Status.WAIT) { 
+            //if Customer is waiting, add him to the queue of the server
+            Server s = serverList.get(events.getServerID() - 1);
+            if (openServers[s.getQueueId()] == 0) {
+                //the queue closed after the Customer chose it
+                rejoin(id, isGreedy, events.getTime(), events.getTime());
+                return;
+            }
+            join(s, id, isGreedy, events.getTime(), events.getTime());
+        } else if (status == Status.RENEGE) {
+            //if Customer is still waiting when his patience runs out, he leaves the queue
+            int queueId = tickets.getQueue(id);
+            queue[queueId].remove(tickets.getTicket(id));
+            tickets.remove(id);
+            waiting--;
+            queueChanged(queueId, events.getTime());
+            sink.log(events.getTime(), id, isGreedy, Status.RENEGE, 0, false);
+            metrics.reneged(isGreedy);
+            if (serviceTimes != null) {
+                serviceTimes.take(id);
+            }
+        } else if (status == Status.SERVED) {
+            //if Customer is served, generate time he is done serving
+            // and update the Server availabilty
+            Server s = serverList.get(events.getServerID() - 1);
+            double serviceTime = serviceTimes == null ? rd.genServiceTime()
+                : serviceTimes.take(id);
+            double endTime = events.getTime() + serviceTime;
+            metrics.busy(s.getID(), serviceTime);
+            resting[s.getID()] = false;
+            if (timeSeries != null) {
+                timeSeries.busy(events.getTime(), endTime);
+            }
+            index.setNextTime(s.getID(), endTime);
+            events.add(endTime, id, isGreedy, Status.DONE, s);
+        } else if (status == Status.DONE) {
+            //if Customer is done serving,
+            //generate probability Server will rest,
+            //and if the Server does not rest,
+            //Serve the next Customer in line.
+            //Otherwise update Server availability to time he is done resting.
+            Server s = serverList.get(events.getServerID() - 1);
+            double endTime = events.getTime();
+            sink.log(endTime, id, isGreedy, Status.DONE, s.getID(), s.isSelfCheck());
+            if (closed[s.getID()] > 0) {
+                index.setNextTime(s.getID(), Double.POSITIVE_INFINITY);
+                return;
+            }
+            double restProb = s.genRestProb(rd);
+            if (restProb != -1 && restProb < prob) {    
+                double restTime = rd.genRestPeriod();
+                double nextTime = endTime + restTime;
+                metrics.rest(s.getID(), restTime);
+                resting[s.getID()] = true;
+                if (timeSeries != null) {
+                    timeSeries.rest(endTime, nextTime);
                 }
+                index.setNextTime(s.getID(), nextTime); //rest until nextTime
+                //add a BACK Event for the resting Server
+                events.add(nextTime, -1, false, Status.BACK, s);
+                return;
             }
+            serveNext(s, endTime);
+        } else if (status == Status.BACK) {
+            //if Server is back from resting, serve the next Customer in line.
+            Server s = serverList.get(events.getServerID() - 1);
+            if (closed[s.getID()] > 0) {
+                index.setNextTime(s.getID(), Double.POSITIVE_INFINITY);
+                return;
+            }
+            serveNext(s, events.getTime());
         }
-        return new double[]{customersLeft, totalWaitingTime};
     }
-}
 
+    /**
+     * Records a Customer leaving because every queue is full.
+     * @param time Time the Customer leaves.
+     * @param id Id of Customer.
+     * @param isGreedy true if the Customer is greedy.
+     */
+    private void leave(double time, int id, boolean isGreedy) {
+        sink.log(time, id, isGreedy, Status.LEAVE, 0, false);
+        metrics.left(isGreedy);
+        if (serviceTimes != null) {
+            serviceTimes.take(id);
+        }
+        if (leaveListener != null && id <= count) {
+            leaveListener.left(time, id, isGreedy);
+        }
+    }
 
+    /**
+     * Closes a Server. An idle Server closes at once, a busy or resting one when it is done.
+     * If it is the last open Server of its queue, the queue is closed and emptied.
+     * @param s Server to close.
+     * @param time Time the Server closes.
+     */
+    private void close(Server s, double time) {
+        if (closed[s.getID()]++ > 0) {
+            return;
+        }
+        if (index.getServerTime(s.getID()) <= time) {
+            index.setNextTime(s.getID(), Double.POSITIVE_INFINITY);
+        }
+        int queueId = s.getQueueId();
+        if (--openServers[queueId] > 0) {
+            return;
+        }
+        index.closeQueue(queueId);
+        CustomerQueue closing = queue[queueId];
+        while (closing.size() > 0) {
+            int id = closing.peekID();
+            boolean isGreedy = closing.peekGreedy();
+            double queueTime = closing.peekTime();
+            closing.remove();
+            waiting--;
+            queueChanged(queueId, time);
+            rejoin(id, isGreedy, queueTime, time);
+        }
+    }
+
+    /**
+     * Opens a Server again, and serves the next Customer in line if it is idle.
+     * @param s Server to open.
+     * @param time Time the Server opens.
+     */
+    private void open(Server s, double time) {
+        if (--closed[s.getID()] > 0) {
+            return;
+        }
+        int queueId = s.getQueueId();
+        if (openServers[queueId]++ == 0) {
+            index.setQueueLength(queueId, queue[queueId].size());
+        }
+        if (index.getServerTime(s.getID()) == Double.POSITIVE_INFINITY) {
+            index.setNextTime(s.getID(), time);
+            serveNext(s, time);
+        }
+    }
+
+    /**
+     * Moves a waiting Customer whose queue has closed to an idle Server, or to another queue
+     * chosen by his RoutingPolicy, or lets him leave if every queue is full.
+     * @param id Id of Customer.
+     * @param isGreedy true if the Customer is greedy.
+     * @param queueTime Time the Customer started waiting, which he keeps.
+     * @param time Current time.
+     */
+    private void rejoin(int id, boolean isGreedy, double queueTime, double time) {
+        Server server = findServer(time);
+        if (server != null) {
+            if (tickets != null) {
+                tickets.remove(id);
+            }
+            sink.log(time, id, isGreedy, Status.SERVED, server.getID(), server.isSelfCheck());
+            events.add(time, id, isGreedy, Status.SERVED, server);
+            served(time - queueTime);
+            return;
+        }
+        int queueId = routing[Customer.tag(isGreedy)].route(index, limit, time);
+        if (queueId == -1) {
+            if (tickets != null) {
+                tickets.remove(id);
+            }
+            leave(time, id, isGreedy);
+            return;
+        }
+        Server s = serverList.get(queueId - 1);
+        sink.log(time, id, isGreedy, Status.WAIT, s.getID(), s.isSelfCheck());
+        join(s, id, isGreedy, queueTime, time);
+    }
+
+    /**
+     * Adds a Customer to the queue of a Server. If reneging is on, a Customer joining
+     * his first queue is given a deadline, which he keeps if he moves to another queue.
+     * @param s Server whose queue the Customer joins.
+     * @param id Id of Customer.
+     * @param isGreedy true if the Customer is greedy.
+     * @param queueTime Time the Customer started waiting.
+     * @param time Current time.
+     */
+    private void join(Server s, int id, boolean isGreedy, double queueTime, double time) {
+        int queueId = s.getQueueId();
+        int ticket = queue[queueId].add(id, queueTime, isGreedy);
+        waiting++;
+        queueChanged(queueId, time);
+        if (tickets != null) {
+            if (!tickets.contains(id)) {
+                double deadline = queueTime + rd.genPatience(renegingRate);
+                events.add(deadline, id, isGreedy, Status.RENEGE, null);
+            }
+            tickets.put(id, queueId, ticket);
+        }
+    }
+
+    /**
+     * Serves the next Customer in the queue of a Server that has become available.
+     * @param s Server that has become available.
+     * @param endTime Time the Server became available.
+     */
+    private void serveNext(Server s, double endTime) {
+        CustomerQueue next = queue[s.getQueueId()];
+        if (next.size() == 0) {
+            return;
+        }
+        int nextId = next.peekID();
+        boolean isGreedy = next.peekGreedy();
+        double waitingTime = endTime - next.peekTime();
+        next.remove();
+        if (tickets != null) {
+            tickets.remove(nextId);
+        }
+        waiting--;
+        queueChanged(s.getQueueId(), endTime);
+        sink.log(endTime, nextId, isGreedy, Status.SERVED, s.getID(), s.isSelfCheck());
+        events.add(endTime, nextId, isGreedy, Status.SERVED, s);
+        served(waitingTime);
+    }
+
+    /**
+     * Writes a snapshot of the current run: the settings and parameters of the run,
+     * the arrival schedule, the state of every random number stream, the next arrival,
+     * the next available time and closures of every Server, every queue, the Metrics,
+     * the steady-state observations, the time series and every pending Event.
+     * The trace logged so far is flushed first.
+     * @param path File to write the snapshot to.
+     */
+    private void writeSnapshot(Path path) {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            writeState(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the state of the current run in the snapshot format, after the header.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    private void writeState(DataOutput out) throws IOException {
+        if (serviceTimes != null) {
+            throw new IllegalStateException("runs that replay a file cannot be checkpointed");
+        }
+        sink.flush();
+        out.writeInt(serverList.size());
+        out.writeInt(queue.length);
+        out.writeBoolean(streamArrivals);
+        out.writeBoolean(primitiveEvents);
+        out.writeBoolean(compatibleRandom);
+        out.writeInt(count);
+        out.writeInt(limit);
+        out.writeInt(seed);
+        out.writeDouble(lambda);
+        out.writeDouble(mu);
+        out.writeDouble(rho);
+        out.writeDouble(prob);
+        out.writeDouble(greedyProb);
+        out.writeBoolean(schedule != null);
+        if (schedule != null) {
+            schedule.write(out);
+        }
+        out.writeDouble(renegingRate);
+        rd.write(out);
+        arrivals.write(out);
+        for (Server s : serverList) {
+            out.writeBoolean(s.isSelfCheck());
+            out.writeDouble(index.getServerTime(s.getID()));
+            out.writeInt(closed[s.getID()]);
+        }
+        for (int i = 1; i < queue.length; i++) {
+            queue[i].write(out);
+        }
+        metrics.write(out);
+        out.writeBoolean(steadyState != null);
+        if (steadyState != null) {
+            out.writeDouble(steadyStatePrecision);
+            steadyState.write(out);
+        }
+        out.writeBoolean(timeSeries != null);
+        if (timeSeries != null) {
+            out.writeDouble(timeSeriesInterval);
+            timeSeries.write(out);
+        }
+        events.write(out);
+    }
+
+    /**
+     * Resumes a run from a snapshot written at a checkpoint, and finishes it.
+     * This Simulator must have the same Servers and self-checkout counters as the one that
+     * wrote the snapshot. The trace continues from the checkpoint, and the results are exactly
+     * those the original run returns.
+     * @param path File the snapshot was written to.
+     * @return double Array which stores the number of Customers who left and total waiting time,
+     *     as returned by serve.
+     */
+    public double[] resume(Path path) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IllegalArgumentException(path + " is not a snapshot");
+            }
+            readState(in, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        begin();
+        runUntil(Double.POSITIVE_INFINITY);
+        return finish();
+    }
+
+    /**
+     * Carries on a forked run in this Simulator with some parameters changed, and finishes it.
+     * This Simulator must have at least the Servers and self-checkout counters of the one
+     * that was forked, in the same order. Extra Servers and self-checkout counters, e.g. from
+     * new Simulator(servers, selfCheck + 2), start at the time of the Fork by serving the
+     * Customers already waiting in their queues, before any new Event is handled.
+     * The trace continues from the Fork. Settings saved in snapshots come from the forked
+     * run, while the EventSink, RoutingPolicies and progress reports of this Simulator apply,
+     * and so do its closures that start at or after the time of the Fork.
+     * @param fork Fork to carry on from.
+     * @param limit Maximum queue length.
+     * @param prob Resting probability.
+     * @param greedyProb Probability of encountering a greedy Customer.
+     * @return double Array which stores the number of Customers who left and total waiting time,
+     *     as returned by serve.
+     */
+    public double[] resume(Fork fork, int limit, double prob, double greedyProb) {
+        int forked;
+        try (DataInputStream in = fork.open()) {
+            forked = readState(in, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.limit = limit;
+        this.prob = prob;
+        this.greedyProb = greedyProb;
+        arrivals.setGreedyProb(greedyProb);
+        scheduleClosures(fork.getTime());
+        begin();
+        for (Server s : serverList) {
+            if (s.getID() > forked) {
+                //an extra Server serves a queue it shares before any new arrival is handled
+                index.setNextTime(s.getID(), fork.getTime());
+                serveNext(s, fork.getTime());
+            }
+        }
+        runUntil(Double.POSITIVE_INFINITY);
+        return finish();
+    }
+
+    /**
+     * Restores the state of a run written by writeState.
+     * @param in DataInput to read from.
+     * @param same true if this Simulator must have exactly the Servers of the run,
+     *     false if it may have more after them.
+     * @return Number of Servers of the run.
+     * @throws IOException if reading fails.
+     */
+    private int readState(DataInput in, boolean same) throws IOException {
+        int servers = in.readInt();
+        int queues = in.readInt();
+        if (same ? servers != serverList.size() || queues != queue.length
+                : servers > serverList.size() || queues > queue.length) {
+            throw new IllegalArgumentException("snapshot has different servers");
+        }
+        streamArrivals = in.readBoolean();
+        primitiveEvents = in.readBoolean();
+        compatibleRandom = in.readBoolean();
+        count = in.readInt();
+        limit = in.readInt();
+        seed = in.readInt();
+        lambda = in.readDouble();
+        mu = in.readDouble();
+        rho = in.readDouble();
+        prob = in.readDouble();
+        greedyProb = in.readDouble();
+        schedule = in.readBoolean() ? RateSchedule.read(in) : null;
+        renegingRate = in.readDouble();
+        rd = new RandomGenerator(seed, lambda, mu, rho, compatibleRandom);
+        rd.read(in);
+        index.setRun(rd, mu);
+        serviceTimes = null;
+        arrivals = new ArrivalSource(rd, count, greedyProb, schedule);
+        arrivals.read(in);
+        closed = new int[serverList.size() + 1];
+        resting = new boolean[serverList.size() + 1];
+        openServers = new int[queue.length];
+        for (Server s : serverList) {
+            if (s.getID() > servers) {
+                //an extra Server of a variant is idle from the start
+                index.setNextTime(s.getID(), 0);
+                openServers[s.getQueueId()]++;
+                continue;
+            }
+            if (in.readBoolean() != s.isSelfCheck()) {
+                throw new IllegalArgumentException("snapshot has different servers");
+            }
+            index.setNextTime(s.getID(), in.readDouble());
+            closed[s.getID()] = in.readInt();
+            if (closed[s.getID()] == 0) {
+                openServers[s.getQueueId()]++;
+            }
+        }
+        waiting = 0;
+        tickets = renegingRate > 0 ? new Tickets() : null;
+        for (int i = 1; i < queue.length; i++) {
+            queue[i] = new CustomerQueue(limit);
+            if (i >= queues) {
+                continue;
+            }
+            queue[i].read(in);
+            waiting += queue[i].size();
+            //a queue read into an empty CustomerQueue holds tickets 0 to size - 1
+            for (int t = 0; tickets != null && t < queue[i].size(); t++) {
+                tickets.put(queue[i].getID(t), i, t);
+            }
+        }
+        index.clearQueues();
+        for (Server s : serverList) {
+            if (openServers[s.getQueueId()] > 0) {
+                index.setQueueLength(s.getQueueId(), queue[s.getQueueId()].size());
+            } else {
+                index.closeQueue(s.getQueueId());
+            }
+        }
+        metrics = new Metrics(serverList.size(), queue.length - 1);
+        metrics.read(in, servers, queues - 1);
+        steadyState = null;
+        if (in.readBoolean()) {
+            steadyStatePrecision = in.readDouble();
+            steadyState = new SteadyState(steadyStatePrecision);
+            steadyState.read(in);
+        }
+        timeSeries = null;
+        if (in.readBoolean()) {
+            timeSeriesInterval = in.readDouble();
+            timeSeries = new TimeSeries(timeSeriesInterval, serverList.size());
+            timeSeries.read(in);
+        }
+        events = primitiveEvents ? new EventHeap() : new ContractQueue();
+        int pending = in.readInt();
+        for (int i = 0; i < pending; i++) {
+            double time = in.readDouble();
+            int id = in.readInt();
+            boolean isGreedy = in.readBoolean();
+            Status status = Status.values()[in.readByte()];
+            int serverId = in.readInt();
+            events.add(time, id, isGreedy, status, 
+                serverId == 0 ? null : serverList.get(serverId - 1));
+            if (status == Status.BACK) {
+                resting[serverId] = true;
+            }
+        }
+        return servers;
+    }
+}
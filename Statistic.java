@@ -0,0 +1,90 @@
+package cs2030.simulator;
+
+/**
+ * Accumulates a sample of values and estimates their mean, variance and
+ * 95% confidence interval for the mean.
+ * Values are accumulated with Welford's method, so no values are stored.
+ */
+public class Statistic {
+    //two-sided 95% Student's t critical values for 1 to 30 degrees of freedom
+    private static final double[] T_975 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+    private static final double Z_975 = 1.959964;
+
+    private long count;
+    private double mean;
+    private double squares;
+
+    /**
+     * Adds a value to the sample.
+     * @param value Value to add.
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squares += delta * (value - mean);
+    }
+
+    /**
+     * Gets the number of values in the sample.
+     * @return Sample size.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the sample mean.
+     * @return Mean of the values, 0 if there are none.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Gets the sample variance.
+     * @return Unbiased variance of the values, 0 if there are fewer than 2.
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : squares / (count - 1);
+    }
+
+    /**
+     * Gets the half-width of the 95% confidence interval for the mean.
+     * @return Half-width of the confidence interval, 0 if there are fewer than 2 values.
+     */
+    public double getHalfWidth() {
+        if (count < 2) {
+            return 0;
+        }
+        return critical(count - 1) * Math.sqrt(getVariance() / count);
+    }
+
+    /**
+     * Gets the two-sided 95% Student's t critical value.
+     * Beyond the table, a Cornish-Fisher expansion around the normal value is used.
+     * @param df Degrees of freedom.
+     * @return Critical value.
+     */
+    static double critical(long df) {
+        if (df <= T_975.length) {
+            return T_975[(int) df - 1];
+        }
+        double z = Z_975;
+        double z3 = z * z * z;
+        return z + (z3 + z) / (4 * df) + (5 * z3 * z * z + 16 * z3 + 3 * z) / (96.0 * df * df);
+    }
+
+    /**
+     * Returns a String representation of the Statistic with its mean and confidence interval.
+     * @return String with the mean and half-width of the confidence interval.
+     */
+    @Override
+    public String toString() {
+        return String.format("%.3f +- %.3f", getMean(), getHalfWidth());
+    }
+}
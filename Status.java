@@ -3,6 +3,8 @@ package cs2030.simulator;
 /**
  * An enum class to represent all the possible states of interaction 
  * between a Server and/or Customer.
+ * BACK, CLOSE and OPEN concern a Server only, and are not logged.
+ * RENEGE is a Customer giving up on waiting, and is only logged if he is still waiting.
  */
 public enum Status {
     ARRIVED(0),
@@ -10,7 +12,10 @@ public enum Status {
     SERVED(2),
     DONE(3),
     LEAVE(4),
-    BACK(5);
+    BACK(5),
+    CLOSE(6),
+    OPEN(7),
+    RENEGE(8);
 
     private final int statusCode;
 
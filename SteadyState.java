@@ -0,0 +1,205 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Estimates steady-state waiting time and queue length from a single run.
+ * Observations are averaged in groups of 5 as they arrive. The warm-up period is found
+ * with MSER-5: the number of leading groups to discard is the one that minimizes the
+ * squared standard error of the mean of the remaining groups, searched over the first half.
+ * The remaining groups are split into 20 batches, whose means give a confidence interval.
+ * Waiting times are observed when Customers are served, and queue lengths are the number of
+ * Customers waiting when each Customer arrives, which for Poisson arrivals averages to the
+ * time-average queue length.
+ */
+public class SteadyState {
+    private static final int GROUP = 5;
+    private static final int BATCHES = 20;
+    //fewest groups left after the warm-up before the precision is checked
+    private static final int MIN_GROUPS = BATCHES * 10;
+    private static final double CHECK_GROWTH = 1.1;
+
+    private final double precision;
+    private final Series waits = new Series();
+    private final Series queueLengths = new Series();
+    private long nextCheck = (long) MIN_GROUPS * GROUP;
+    private boolean precise;
+
+    /**
+     * Creates a SteadyState estimator.
+     * @param precision Target half-width of the waiting time confidence interval, relative to
+     *     the mean, e.g. 0.05 for 5%. 0 to never reach the target.
+     */
+    public SteadyState(double precision) {
+        this.precision = precision;
+    }
+
+    /**
+     * Observes the waiting time of a served Customer.
+     * @param waitingTime Time the Customer spent in a queue.
+     */
+    void addWait(double waitingTime) {
+        waits.add(waitingTime);
+        if (waits.count >= nextCheck) {
+            nextCheck = (long) (waits.count * CHECK_GROWTH) + 1;
+            Statistic wait = getWaitingTime();
+            precise = precision > 0 && wait.getCount() == BATCHES
+                && waits.groups - waits.warmup() >= MIN_GROUPS
+                && wait.getHalfWidth() <= precision * Math.abs(wait.getMean());
+        }
+    }
+
+    /**
+     * Observes the number of Customers waiting when a Customer arrives.
+     * @param length Number of Customers in all queues.
+     */
+    void addQueueLength(int length) {
+        queueLengths.add(length);
+    }
+
+    /**
+     * Checks if the waiting time confidence interval has reached the target precision.
+     * The precision is only checked every time the number of waiting times grows by 10%.
+     * @return true if the run can stop.
+     */
+    public boolean isPrecise() {
+        return precise;
+    }
+
+    /**
+     * Gets the number of served Customers discarded as the warm-up period.
+     * @return Number of waiting times discarded.
+     */
+    public long getWarmup() {
+        return (long) waits.warmup() * GROUP;
+    }
+
+    /**
+     * Gets the batch means of the waiting time after the warm-up period.
+     * @return Statistic of up to 20 batch means.
+     */
+    public Statistic getWaitingTime() {
+        return waits.batchMeans();
+    }
+
+    /**
+     * Gets the batch means of the queue length seen by arriving Customers
+     * after the warm-up period.
+     * @return Statistic of up to 20 batch means.
+     */
+    public Statistic getQueueLength() {
+        return queueLengths.batchMeans();
+    }
+
+    /**
+     * Writes every observation so far.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException {
+        waits.write(out);
+        queueLengths.write(out);
+        out.writeLong(nextCheck);
+        out.writeBoolean(precise);
+    }
+
+    /**
+     * Restores the observations written by write.
+     * @param in DataInput to read from.
+     * @throws IOException if reading fails.
+     */
+    void read(DataInput in) throws IOException {
+        waits.read(in);
+        queueLengths.read(in);
+        nextCheck = in.readLong();
+        precise = in.readBoolean();
+    }
+
+    /**
+     * A series of observations, kept as the means of consecutive groups of 5.
+     */
+    private static class Series {
+        private double[] means = new double[64];
+        private int groups;
+        private long count;
+        private double sum;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            if (count % GROUP == 0) {
+                if (groups == means.length) {
+                    means = Arrays.copyOf(means, groups * 2);
+                }
+                means[groups++] = sum / GROUP;
+                sum = 0;
+            }
+        }
+
+        /**
+         * Finds the number of leading groups to discard with MSER.
+         */
+        int warmup() {
+            double suffix = 0;
+            double suffixSquares = 0;
+            int best = 0;
+            double bestStatistic = Double.POSITIVE_INFINITY;
+            for (int d = groups - 1; d >= 0; d--) {
+                suffix += means[d];
+                suffixSquares += means[d] * means[d];
+                int n = groups - d;
+                if (d <= groups / 2) {
+                    double statistic = (suffixSquares - suffix * suffix / n) / ((double) n * n);
+                    if (statistic <= bestStatistic) {
+                        bestStatistic = statistic;
+                        best = d;
+                    }
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Splits the groups after the warm-up into 20 batches of equal size, dropping the
+         * earliest groups that do not fit, and collects the batch means.
+         */
+        Statistic batchMeans() {
+            Statistic batchMeans = new Statistic();
+            int first = warmup();
+            int size = (groups - first) / BATCHES;
+            if (size == 0) {
+                return batchMeans;
+            }
+            for (int b = groups - size * BATCHES; b < groups; b += size) {
+                double total = 0;
+                for (int i = b; i < b + size; i++) {
+                    total += means[i];
+                }
+                batchMeans.add(total / size);
+            }
+            return batchMeans;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeLong(count);
+            out.writeDouble(sum);
+            out.writeInt(groups);
+            for (int i = 0; i < groups; i++) {
+                out.writeDouble(means[i]);
+            }
+        }
+
+        void read(DataInput in) throws IOException {
+            count = in.readLong();
+            sum = in.readDouble();
+            groups = in.readInt();
+            means = new double[Math.max(groups, 64)];
+            for (int i = 0; i < groups; i++) {
+                means[i] = in.readDouble();
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package cs2030.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Simulates a chain of stores, each one a Simulator running on its own thread.
+ * A Customer who leaves a store because every queue is full walks to the next store in the
+ * chain, the last store sending Customers to the first, and arrives there after a travel time.
+ * Customers only move once, so a Customer who also finds the next store full leaves the chain.
+ * Stores synchronize in time windows as long as the travel time: a Customer who leaves during
+ * a window cannot arrive anywhere before the window ends, so every store handles its Events
+ * in the window independently. Between windows, moving Customers are taken from lock-free
+ * mailboxes and added to their new store in order of arrival time, store and Id.
+ * The results are therefore the same for every run, however the threads are scheduled.
+ * Each store logs its trace to its own EventSink, so stores should not share one.
+ */
+public class StoreChain {
+    private final List<Simulator> stores;
+    private final double travelTime;
+    private final List<Queue<Traveller>> mailboxes = new ArrayList<>();
+    private final CyclicBarrier sent;
+    private final CyclicBarrier delivered;
+    private final long[] received;
+    private final long[] departed;
+    private volatile double windowEnd;
+    private volatile boolean done;
+
+    /**
+     * Creates a StoreChain.
+     * @param stores Simulators of the stores, in chain order.
+     * @param travelTime Time a Customer takes to walk to the next store, greater than 0.
+     */
+    public StoreChain(List<Simulator> stores, double travelTime) {
+        if (!(travelTime > 0)) {
+            throw new IllegalArgumentException("travel time must be positive");
+        }
+        this.stores = new ArrayList<>(stores);
+        this.travelTime = travelTime;
+        for (int i = 0; i < stores.size(); i++) {
+            mailboxes.add(new ConcurrentLinkedQueue<>());
+        }
+        sent = new CyclicBarrier(stores.size());
+        delivered = new CyclicBarrier(stores.size(), this::advance);
+        received = new long[stores.size()];
+        departed = new long[stores.size()];
+    }
+
+    /**
+     * Runs every store until all Customers have been served or have left the chain.
+     * Store i uses seed firstSeed + i, and its own Servers and self-checkout counters.
+     * @param count Number of Customers arriving at each store.
+     * @param limit Maximum queue length.
+     * @param firstSeed Seed of the first store.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param prob Resting probability.
+     * @param greedyProb Probability of encountering a greedy Customer.
+     * @return For each store, the number of Customers who left the chain there, the total
+     *     waiting time and the number of Customers served there. A Customer who moves on to
+     *     the next store is counted by getTransfersOut, not as having left.
+     */
+    public double[][] serve(int count, int limit, int firstSeed, double lambda, 
+            double mu, double rho, double prob, double greedyProb) {
+        int n = stores.size();
+        for (int i = 0; i < n; i++) {
+            Simulator store = stores.get(i);
+            Queue<Traveller> next = mailboxes.get((i + 1) % n);
+            int from = i;
+            if (n > 1) {
+                //only store i's thread calls its listener, so departed[i] needs no lock
+                store.setLeaveListener((time, id, greedy) -> {
+                    departed[from]++;
+                    next.add(new Traveller(time + travelTime, from, id, greedy));
+                });
+            }
+            store.start(count, limit, firstSeed + i, lambda, mu, rho, prob, greedyProb);
+            received[i] = 0;
+            departed[i] = 0;
+        }
+        advance();
+        double[][] results = new double[n][];
+        ExecutorService pool = Executors.newFixedThreadPool(n);
+        CompletionService<Void> tasks = new ExecutorCompletionService<>(pool);
+        for (int i = 0; i < n; i++) {
+            int store = i;
+            tasks.submit(() -> {
+                results[store] = runStore(store);
+                return null;
+            });
+        }
+        try {
+            //take tasks as they finish, so that a failed store stops the others at once
+            for (int i = 0; i < n; i++) {
+                tasks.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while simulating stores", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("store failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            for (Simulator store : stores) {
+                store.setLeaveListener(null);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the number of Customers who moved to another store in the most recent run.
+     * @return Number of Customers who moved.
+     */
+    public long getTransfers() {
+        long total = 0;
+        for (long r : received) {
+            total += r;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of Customers who moved to a store in the most recent run.
+     * @param store Index of the store in the chain.
+     * @return Number of Customers who arrived from the previous store.
+     */
+    public long getTransfers(int store) {
+        return received[store];
+    }
+
+    /**
+     * Gets the number of Customers who moved from a store to the next in the most recent run.
+     * @param store Index of the store in the chain.
+     * @return Number of Customers who left the store for the next one.
+     */
+    public long getTransfersOut(int store) {
+        return departed[store];
+    }
+
+    /**
+     * Runs one store window by window until no store has Events left.
+     * @param i Index of the store.
+     * @return double Array which stores the number of Customers who left the chain at the store,
+     *     total waiting time and the number of Customers served.
+     * @throws InterruptedException if another store failed.
+     * @throws BrokenBarrierException if another store failed.
+     */
+    private double[] runStore(int i) throws InterruptedException, BrokenBarrierException {
+        Simulator store = stores.get(i);
+        Queue<Traveller> mailbox = mailboxes.get(i);
+        List<Traveller> arrived = new ArrayList<>();
+        while (!done) {
+            store.runUntil(windowEnd);
+            //wait until every store has sent the Customers who left during the window
+            sent.await();
+            for (Traveller t = mailbox.poll(); t != null; t = mailbox.poll()) {
+                arrived.add(t);
+            }
+            arrived.sort(null);
+            for (Traveller t : arrived) {
+                store.addTransfer(t.time, t.greedy);
+            }
+            received[i] += arrived.size();
+            arrived.clear();
+            delivered.await();
+        }
+        double[] result = store.finish();
+        //the Simulator counts a Customer who moved on as having left
+        return new double[]{result[0] - departed[i], result[1], store.getMetrics().getServed()};
+    }
+
+    /**
+     * Starts the next window at the earliest pending Event of any store,
+     * or ends the run if there is none.
+     */
+    private void advance() {
+        double next = Double.POSITIVE_INFINITY;
+        for (Simulator store : stores) {
+            next = Math.min(next, store.nextTime());
+        }
+        done = next == Double.POSITIVE_INFINITY;
+        windowEnd = next + travelTime;
+    }
+
+    /**
+     * A Customer walking to another store.
+     */
+    private static class Traveller implements Comparable<Traveller> {
+        private final double time;
+        private final int from;
+        private final int id;
+        private final boolean greedy;
+
+        Traveller(double time, int from, int id, boolean greedy) {
+            this.time = time;
+            this.from = from;
+            this.id = id;
+            this.greedy = greedy;
+        }
+
+        @Override
+        public int compareTo(Traveller other) {
+            if (time != other.time) {
+                return time < other.time ? -1 : 1;
+            }
+            if (from != other.from) {
+                return Integer.compare(from, other.from);
+            }
+            return Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package cs2030.simulator;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a simulation for every combination of parameter values in one JVM.
+ * Points are scheduled over a pool of worker threads and each result is written
+ * as a CSV row as soon as it is ready, so rows appear in completion order.
+ * Each point runs a number of replications with consecutive seeds.
+ * If a target waiting time is set, server counts are tried in ascending order for every
+ * combination of the other parameters, and larger counts are skipped once the average
+ * waiting time drops below the target.
+ * With screening on as well, each server count is first estimated by an Estimator, and
+ * only counts whose estimate is close to the target are simulated. Rows of counts that are
+ * clearly above or below it hold the estimate instead, with no confidence interval.
+ */
+public class Sweep {
+    static final String HEADER = "servers,selfCheck,limit,lambda,mu,rho,prob,greedyProb,"
+        + "avgWaitingTime,avgWaitingTimeHalfWidth,served,left";
+    private static final int SERVERS = 0;
+    private static final int SELF_CHECK = 1;
+    private static final int LIMIT = 2;
+    private static final int LAMBDA = 3;
+    private static final int MU = 4;
+    private static final int RHO = 5;
+    private static final int PROB = 6;
+    private static final int GREEDY_PROB = 7;
+
+    private final int count;
+    private final int firstSeed;
+    private final int replications;
+    private final double[][] values = {{1}, {0}, {1}, {1}, {1}, {1}, {0}, {0}};
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private double targetWait = Double.NaN;
+    private double screenFactor = Double.NaN;
+    private final AtomicInteger screened = new AtomicInteger();
+
+    /**
+     * Creates a Sweep where every parameter has a single default value:
+     * 1 Server, no self-checkout counters, limit 1, all rates 1 and all probabilities 0.
+     * @param count Number of Customers in each simulation.
+     * @param firstSeed Seed of the first replication of every point.
+     * @param replications Number of replications of every point.
+     */
+    public Sweep(int count, int firstSeed, int replications) {
+        this.count = count;
+        this.firstSeed = firstSeed;
+        this.replications = replications;
+    }
+
+    /**
+     * Generates evenly spaced values.
+     * @param from First value.
+     * @param to Last value, included if it is reached.
+     * @param step Difference between consecutive values.
+     * @return Values from, from + step, ... up to to.
+     */
+    public static double[] range(double from, double to, double step) {
+        int n = (int) Math.floor((to - from) / step + 1e-9) + 1;
+        double[] range = new double[Math.max(n, 0)];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = from + i * step;
+        }
+        return range;
+    }
+
+    /**
+     * Sets the numbers of Servers to try.
+     * @param servers Numbers of Servers.
+     */
+    public void setServers(double... servers) {
+        values[SERVERS] = servers.clone();
+    }
+
+    /**
+     * Sets the numbers of self-checkout counters to try.
+     * @param selfCheck Numbers of self-checkout counters.
+     */
+    public void setSelfCheck(double... selfCheck) {
+        values[SELF_CHECK] = selfCheck.clone();
+    }
+
+    /**
+     * Sets the maximum queue lengths to try.
+     * @param limit Maximum queue lengths.
+     */
+    public void setLimit(double... limit) {
+        values[LIMIT] = limit.clone();
+    }
+
+    /**
+     * Sets the arrival rates to try.
+     * @param lambda Arrival rates.
+     */
+    public void setLambda(double... lambda) {
+        values[LAMBDA] = lambda.clone();
+    }
+
+    /**
+     * Sets the service rates to try.
+     * @param mu Service rates.
+     */
+    public void setMu(double... mu) {
+        values[MU] = mu.clone();
+    }
+
+    /**
+     * Sets the resting rates to try.
+     * @param rho Resting rates.
+     */
+    public void setRho(double... rho) {
+        values[RHO] = rho.clone();
+    }
+
+    /**
+     * Sets the resting probabilities to try.
+     * @param prob Resting probabilities.
+     */
+    public void setProb(double... prob) {
+        values[PROB] = prob.clone();
+    }
+
+    /**
+     * Sets the probabilities of encountering a greedy Customer to try.
+     * @param greedyProb Probabilities of encountering a greedy Customer.
+     */
+    public void setGreedyProb(double... greedyProb) {
+        values[GREEDY_PROB] = greedyProb.clone();
+    }
+
+    /**
+     * Sets the number of worker threads.
+     * @param threads Number of worker threads.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Sets a target average waiting time, so that larger server counts are skipped
+     * once a server count reaches it.
+     * @param targetWait Target average waiting time.
+     */
+    public void setTargetWait(double targetWait) {
+        this.targetWait = targetWait;
+    }
+
+    /**
+     * Turns on screening of server counts for a target waiting time. A server count is
+     * simulated only if its estimated average waiting time is within a factor of the target;
+     * otherwise the estimate is written, and if it is below the target the larger counts are
+     * skipped. Rows then get a last column telling whether they were simulated or estimated.
+     * The estimate can be off by tens of percent, so the factor should be well above 1.
+     * @param factor Factor, e.g. 2, or NaN to simulate every server count.
+     */
+    public void setScreening(double factor) {
+        this.screenFactor = factor;
+    }
+
+    /**
+     * Gets the number of points of the most recent run that were estimated instead of
+     * simulated because of screening.
+     * @return Number of points screened out.
+     */
+    public int getScreened() {
+        return screened.get();
+    }
+
+    /**
+     * Runs every point of the sweep and writes a CSV header and one row per point.
+     * @param out PrintStream to write CSV rows to.
+     * @return Number of points simulated.
+     */
+    public int run(PrintStream out) {
+        out.println(isScreening() ? HEADER + ",source" : HEADER);
+        screened.set(0);
+        boolean cutOff = !Double.isNaN(targetWait);
+        double[] servers = values[SERVERS].clone();
+        if (cutOff) {
+            Arrays.sort(servers);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> tasks = new ArrayList<>();
+        //odometer over every parameter except the number of Servers
+        int[] digits = new int[values.length];
+        do {
+            double[] point = new double[values.length];
+            for (int i = 1; i < values.length; i++) {
+                point[i] = values[i][digits[i]];
+            }
+            if (cutOff) {
+                tasks.add(pool.submit(() -> runSeries(point, servers, out)));
+            } else {
+                for (double s : servers) {
+                    double[] p = point.clone();
+                    p[SERVERS] = s;
+                    tasks.add(pool.submit(() -> {
+                        runPoint(p, out);
+                        return 1;
+                    }));
+                }
+            }
+        } while (advance(digits));
+        int points = 0;
+        try {
+            for (Future<Integer> task : tasks) {
+                points += task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while sweeping", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("sweep point failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return points;
+    }
+
+    /**
+     * Moves the odometer to the next combination of values.
+     * @param digits Index of the current value of every parameter except the first.
+     * @return false once every combination has been visited.
+     */
+    private boolean advance(int[] digits) {
+        for (int i = values.length - 1; i > 0; i--) {
+            digits[i]++;
+            if (digits[i] < values[i].length) {
+                return true;
+            }
+            digits[i] = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if server counts are screened with an Estimator.
+     * @return true if both a target waiting time and a screening factor are set.
+     */
+    private boolean isScreening() {
+        return !Double.isNaN(targetWait) && !Double.isNaN(screenFactor);
+    }
+
+    /**
+     * Tries server counts in ascending order until the target waiting time is reached.
+     * @return Number of points simulated.
+     */
+    private int runSeries(double[] point, double[] servers, PrintStream out) {
+        int points = 0;
+        for (double s : servers) {
+            double[] p = point.clone();
+            p[SERVERS] = s;
+            if (isScreening()) {
+                Estimator e = new Estimator((int) p[SERVERS], (int) p[SELF_CHECK],
+                    (int) p[LIMIT], p[LAMBDA], p[MU], p[RHO], p[PROB]);
+                double wait = e.getAverageWaitingTime();
+                if (wait > targetWait * screenFactor || wait < targetWait / screenFactor) {
+                    screened.incrementAndGet();
+                    writeRow(p, wait, Double.NaN, count * (1 - e.getBalking()),
+                        count * e.getBalking(), "estimated", out);
+                    if (wait < targetWait) {
+                        break;
+                    }
+                    continue;
+                }
+            }
+            points++;
+            if (runPoint(p, out) < targetWait) {
+                break;
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Simulates a single point and writes its CSV row.
+     * @return Mean of the average waiting time over all replications.
+     */
+    private double runPoint(double[] p, PrintStream out) {
+        Replications r = new Replications((int) p[SERVERS], (int) p[SELF_CHECK], (int) p[LIMIT],
+            count, p[LAMBDA], p[MU], p[RHO], p[PROB], p[GREEDY_PROB]);
+        for (int seed = firstSeed; seed < firstSeed + replications; seed++) {
+            r.add(r.replicate(seed));
+        }
+        Statistic wait = r.getAverageWaitingTime();
+        writeRow(p, wait.getMean(), wait.getHalfWidth(), r.getServed().getMean(),
+            r.getLeft().getMean(), "simulated", out);
+        return wait.getMean();
+    }
+
+    /**
+     * Writes the CSV row of a point, with its source if screening is on.
+     */
+    private void writeRow(double[] p, double wait, double halfWidth, double served,
+            double left, String source, PrintStream out) {
+        String row = String.format("%d,%d,%d,%s,%s,%s,%s,%s,%.6f,%.6f,%.3f,%.3f",
+            (int) p[SERVERS], (int) p[SELF_CHECK], (int) p[LIMIT], p[LAMBDA], p[MU], p[RHO], 
+            p[PROB], p[GREEDY_PROB], wait, halfWidth, served, left);
+        out.println(isScreening() ? row + "," + source : row);
+    }
+}
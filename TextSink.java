@@ -0,0 +1,162 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An EventSink that writes the simulation trace as text, one line per Event.
+ * Lines are formatted by hand into a byte buffer which is only written to the
+ * OutputStream when it is full or flushed. The output is identical to formatting
+ * every line with String.format and printing it with println.
+ */
+public class TextSink implements EventSink {
+    private static final int BUFFER_SIZE = 1 << 16;
+    //longest line, unless the time is formatted with String.format
+    private static final int MAX_LINE = 128;
+    private static final byte[] NEWLINE = System.lineSeparator()
+        .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GREEDY = ascii("(greedy)");
+    private static final byte[] ARRIVES = ascii(" arrives");
+    private static final byte[] WAITS = ascii(" waits to be served by ");
+    private static final byte[] SERVED = ascii(" served by ");
+    private static final byte[] LEAVES = ascii(" leaves");
+    private static final byte[] RENEGES = ascii(" reneges");
+    private static final byte[] DONE = ascii(" done serving by ");
+    private static final byte[] SERVER = ascii("server ");
+    private static final byte[] SELF_CHECK = ascii("self-check ");
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+
+    /**
+     * Creates a TextSink that writes to an OutputStream.
+     * @param out OutputStream to write the trace to, e.g. System.out.
+     */
+    public TextSink(OutputStream out) {
+        this.out = out;
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    @Override
+    public void log(double time, int id, boolean greedy, Status status, 
+            int serverId, boolean selfCheck) {
+        if (position > BUFFER_SIZE - MAX_LINE) {
+            writeBuffer();
+        }
+        writeTime(time);
+        buffer[position++] = ' ';
+        writeLong(id);
+        if (greedy) {
+            write(GREEDY);
+        }
+        switch (status) {
+            case ARRIVED:
+                write(ARRIVES);
+                break;
+            case WAIT:
+                write(WAITS);
+                writeServer(serverId, selfCheck);
+                break;
+            case SERVED:
+                write(SERVED);
+                writeServer(serverId, selfCheck);
+                break;
+            case LEAVE:
+                write(LEAVES);
+                break;
+            case RENEGE:
+                write(RENEGES);
+                break;
+            case DONE:
+                write(DONE);
+                writeServer(serverId, selfCheck);
+                break;
+            default:
+                break;
+        }
+        write(NEWLINE);
+    }
+
+    @Override
+    public void flush() {
+        writeBuffer();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a time with exactly 3 decimal places, the same way as String.format("%.3f").
+     * String.format rounds the shortest decimal representation of the time half up,
+     * so times too close to a tie for a fast rounding to be safe, and very large or
+     * negative times, are formatted with String.format instead.
+     * @param time Time to write.
+     */
+    private void writeTime(double time) {
+        double scaled = time * 1000;
+        long whole = (long) scaled;
+        double fraction = scaled - whole;
+        if (!(time >= 0 && time < 1e6) || Math.abs(fraction - 0.5) < 1e-4) {
+            write(ascii(String.format("%.3f", time)));
+            return;
+        }
+        long millis = fraction < 0.5 ? whole : whole + 1;
+        writeLong(millis / 1000);
+        buffer[position++] = '.';
+        int decimals = (int) (millis % 1000);
+        buffer[position++] = (byte) ('0' + decimals / 100);
+        buffer[position++] = (byte) ('0' + decimals / 10 % 10);
+        buffer[position++] = (byte) ('0' + decimals % 10);
+    }
+
+    private void writeServer(int serverId, boolean selfCheck) {
+        write(selfCheck ? SELF_CHECK : SERVER);
+        writeLong(serverId);
+    }
+
+    /**
+     * Writes the decimal digits of a non-negative number.
+     * @param value Number to write.
+     */
+    private void writeLong(long value) {
+        if (value < 0) {
+            write(ascii(Long.toString(value)));
+            return;
+        }
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void write(byte[] bytes) {
+        if (position + bytes.length > BUFFER_SIZE) {
+            writeBuffer();
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeBuffer() {
+        try {
+            out.write(buffer, 0, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,128 @@
+package cs2030.simulator;
+
+/**
+ * The queue and ticket of every waiting Customer, looked up by Customer Id, so that
+ * a Customer who runs out of patience can be removed from the middle of his queue.
+ * Entries are kept in primitive arrays as an open-addressing hash table with linear
+ * probing, so the table only grows with the number of waiting Customers.
+ */
+class Tickets {
+    private int[] ids = new int[64];
+    private int[] queues = new int[64];
+    private int[] tickets = new int[64];
+    private int size;
+
+    /**
+     * Records the queue and ticket of a waiting Customer, replacing any previous ones.
+     * @param id Id of Customer, at least 1.
+     * @param queueId Id of the queue he waits in.
+     * @param ticket Ticket the queue gave him.
+     */
+    void put(int id, int queueId, int ticket) {
+        if (2 * (size + 1) > ids.length) {
+            grow();
+        }
+        int i = find(id);
+        if (ids[i] == 0) {
+            ids[i] = id;
+            size++;
+        }
+        queues[i] = queueId;
+        tickets[i] = ticket;
+    }
+
+    /**
+     * Checks if a Customer is waiting.
+     * @param id Id of Customer.
+     * @return true if the Customer has a ticket.
+     */
+    boolean contains(int id) {
+        return ids[find(id)] != 0;
+    }
+
+    /**
+     * Gets the queue a waiting Customer is in.
+     * @param id Id of a waiting Customer.
+     * @return Id of queue.
+     */
+    int getQueue(int id) {
+        return queues[find(id)];
+    }
+
+    /**
+     * Gets the ticket of a waiting Customer.
+     * @param id Id of a waiting Customer.
+     * @return Ticket.
+     */
+    int getTicket(int id) {
+        return tickets[find(id)];
+    }
+
+    /**
+     * Removes the ticket of a Customer who is no longer waiting, if he has one.
+     * Later entries of the probe sequence are shifted back into the gap.
+     * @param id Id of Customer.
+     */
+    void remove(int id) {
+        int mask = ids.length - 1;
+        int gap = find(id);
+        if (ids[gap] == 0) {
+            return;
+        }
+        size--;
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (ids[i] == 0) {
+                break;
+            }
+            int home = slot(ids[i]);
+            //move the entry back unless its home lies cyclically in (gap, i]
+            if (gap <= i ? home <= gap || home > i : home <= gap && home > i) {
+                ids[gap] = ids[i];
+                queues[gap] = queues[i];
+                tickets[gap] = tickets[i];
+                gap = i;
+            }
+        }
+        ids[gap] = 0;
+    }
+
+    /**
+     * Finds the slot of a Customer, or the empty slot where he would go.
+     */
+    private int find(int id) {
+        int mask = ids.length - 1;
+        int i = slot(id);
+        while (ids[i] != 0 && ids[i] != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Gets the slot a Customer Id hashes to.
+     */
+    private int slot(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ h >>> 16) & (ids.length - 1);
+    }
+
+    /**
+     * Doubles the table, putting every entry back.
+     */
+    private void grow() {
+        int[] oldIds = ids;
+        int[] oldQueues = queues;
+        int[] oldTickets = tickets;
+        ids = new int[oldIds.length * 2];
+        queues = new int[ids.length];
+        tickets = new int[ids.length];
+        size = 0;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != 0) {
+                put(oldIds[i], oldQueues[i], oldTickets[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Time-weighted queue length and Server states of a run, downsampled to fixed intervals.
+ * Sample k covers simulation time [k * interval, (k + 1) * interval). Every change of state
+ * adds its duration to the samples it overlaps, so no Event is stored and the cost per Event
+ * is constant. A Server is busy from the time it starts serving until it is done, and resting
+ * from then until it is back. Samples are kept in primitive arrays that grow with the run.
+ */
+public class TimeSeries {
+    private static final int QUEUE = 0;
+    private static final int BUSY = 1;
+    private static final int REST = 2;
+
+    private final double interval;
+    private final int servers;
+    //area of each sample, for the queue length and the busy and resting Servers
+    private double[][] areas = new double[3][64];
+    private double lastChange;
+    private int lastLength;
+    private double endTime;
+
+    /**
+     * Creates an empty TimeSeries.
+     * @param interval Simulation time covered by each sample.
+     * @param servers Number of Servers, including self-checkout counters.
+     */
+    TimeSeries(double interval, int servers) {
+        if (!(interval > 0)) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.interval = interval;
+        this.servers = servers;
+    }
+
+    /**
+     * Records a change in the number of Customers waiting in all queues.
+     * @param length New number of waiting Customers.
+     * @param time Time of the change.
+     */
+    void queueLength(int length, double time) {
+        spread(QUEUE, lastChange, time, lastLength);
+        lastChange = time;
+        lastLength = length;
+    }
+
+    /**
+     * Records a Server serving a Customer.
+     * @param start Time service starts.
+     * @param end Time service ends.
+     */
+    void busy(double start, double end) {
+        spread(BUSY, start, end, 1);
+    }
+
+    /**
+     * Records a Server resting.
+     * @param start Time the Server starts resting.
+     * @param end Time the Server is back.
+     */
+    void rest(double start, double end) {
+        spread(REST, start, end, 1);
+    }
+
+    /**
+     * Takes off the part of a service or rest that was recorded after the end of the run.
+     * @param end Time of the last Event.
+     * @param until Time the service or rest was recorded until.
+     * @param rest true for a rest, false for a service.
+     */
+    void clip(double end, double until, boolean rest) {
+        spread(rest ? REST : BUSY, end, until, -1);
+    }
+
+    /**
+     * Ends the series at the time of the last Event.
+     * @param time Time of the last Event.
+     */
+    void finish(double time) {
+        queueLength(lastLength, time);
+        endTime = time;
+    }
+
+    /**
+     * Gets the simulation time covered by each sample.
+     * @return Sample interval.
+     */
+    public double getInterval() {
+        return interval;
+    }
+
+    /**
+     * Gets the number of samples up to the last Event.
+     * @return Number of samples.
+     */
+    public int getSamples() {
+        return (int) Math.ceil(endTime / interval);
+    }
+
+    /**
+     * Gets the time-weighted average number of Customers waiting in all queues.
+     * @return Average queue length of each sample.
+     */
+    public double[] getQueueLength() {
+        return average(areas[QUEUE]);
+    }
+
+    /**
+     * Gets the time-weighted average number of Servers serving a Customer.
+     * @return Average number of busy Servers of each sample.
+     */
+    public double[] getBusyServers() {
+        return average(areas[BUSY]);
+    }
+
+    /**
+     * Gets the time-weighted average number of Servers resting.
+     * @return Average number of resting Servers of each sample.
+     */
+    public double[] getRestingServers() {
+        return average(areas[REST]);
+    }
+
+    /**
+     * Gets the time-weighted average number of Servers neither serving nor resting.
+     * @return Average number of idle Servers of each sample.
+     */
+    public double[] getIdleServers() {
+        double[] idle = getBusyServers();
+        double[] resting = getRestingServers();
+        for (int k = 0; k < idle.length; k++) {
+            idle[k] = servers - idle[k] - resting[k];
+        }
+        return idle;
+    }
+
+    /**
+     * Writes every sample so far.
+     * @param out DataOutput to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(DataOutput out) throws IOException {
+        int used = used();
+        out.writeInt(used);
+        for (double[] area : areas) {
+            for (int k = 0; k < used; k++) {
+                out.writeDouble(area[k]);
+            }
+        }
+        out.writeDouble(lastChange);
+        out.writeInt(lastLength);
+        out.writeDouble(endTime);
+    }
+
+    /**
+     * Restores the samples written by write.
+     * The TimeSeries must have been created with the same interval and number of Servers.
+     * @param in DataInput to read from.
+     * @throws IOException if reading fails.
+     */
+    void read(DataInput in) throws IOException {
+        int used = in.readInt();
+        areas = new double[3][Math.max(used, 64)];
+        for (double[] area : areas) {
+            for (int k = 0; k < used; k++) {
+                area[k] = in.readDouble();
+            }
+        }
+        lastChange = in.readDouble();
+        lastLength = in.readInt();
+        endTime = in.readDouble();
+    }
+
+    /**
+     * Adds a constant value over a period of time to the samples the period overlaps,
+     * growing the samples if the period ends beyond them.
+     */
+    private void spread(int series, double start, double end, double value) {
+        if (value == 0 || !(end > start)) {
+            return;
+        }
+        int last = (int) (end / interval);
+        if (last >= areas[series].length) {
+            int capacity = Math.max(areas[series].length * 2, last + 1);
+            for (int i = 0; i < areas.length; i++) {
+                areas[i] = Arrays.copyOf(areas[i], capacity);
+            }
+        }
+        double[] area = areas[series];
+        int k = (int) (start / interval);
+        while (start < end && k < area.length) {
+            double stop = Math.max(start, Math.min(end, (k + 1) * interval));
+            area[k] += value * (stop - start);
+            start = stop;
+            k++;
+        }
+    }
+
+    /**
+     * Divides the area of each sample up to the last Event by the time it covers.
+     */
+    private double[] average(double[] area) {
+        int samples = getSamples();
+        double[] averages = Arrays.copyOf(area, samples);
+        for (int k = 0; k < samples; k++) {
+            double covered = Math.min(interval, endTime - k * interval);
+            averages[k] = covered > 0 ? averages[k] / covered : 0;
+        }
+        return averages;
+    }
+
+    /**
+     * Gets the number of samples that may hold an area.
+     */
+    private int used() {
+        int used = areas[QUEUE].length;
+        while (used > 0 && areas[QUEUE][used - 1] == 0 && areas[BUSY][used - 1] == 0
+                && areas[REST][used - 1] == 0) {
+            used--;
+        }
+        return used;
+    }
+}
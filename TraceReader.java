@@ -0,0 +1,175 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a binary trace written by a BinarySink, one record at a time.
+ * Only the records counted in the header are read, i.e. those written before the
+ * last flush of the BinarySink.
+ * The file is memory-mapped chunk by chunk, so traces larger than memory can be scanned.
+ * Call next to move to the next record, then read its fields with the getters,
+ * or replay the whole trace into an EventSink.
+ */
+public class TraceReader {
+    private static final Status[] STATUSES = Status.values();
+
+    private final FileChannel channel;
+    private final long end;
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+
+    private double time;
+    private int id;
+    private int serverId;
+    private Status status;
+    private int flags;
+
+    /**
+     * Opens a binary trace.
+     * @param path File written by a BinarySink.
+     */
+    public TraceReader(Path path) {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(BinarySink.HEADER)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < BinarySink.HEADER || header.getInt() != BinarySink.MAGIC
+                    || header.getInt() != BinarySink.VERSION) {
+                channel.close();
+                throw new IllegalArgumentException(path + " is not a binary trace");
+            }
+            //unused space after the last record of an unclosed trace is not read
+            long records = header.getLong();
+            end = Math.min(channel.size(), BinarySink.HEADER + records * BinarySink.RECORD);
+            chunkStart = BinarySink.HEADER;
+            chunk = map(chunkStart);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Moves to the next record.
+     * @return true if there was another record, false at the end of the trace.
+     */
+    public boolean next() {
+        if (chunk.remaining() < BinarySink.RECORD) {
+            if (chunkStart + chunk.capacity() >= end) {
+                return false;
+            }
+            chunkStart += chunk.capacity();
+            chunk = map(chunkStart);
+            if (chunk.remaining() < BinarySink.RECORD) {
+                return false;
+            }
+        }
+        time = chunk.getDouble();
+        id = chunk.getInt();
+        serverId = chunk.getInt();
+        status = STATUSES[chunk.get()];
+        flags = chunk.get();
+        return true;
+    }
+
+    /**
+     * Gets the time of the current record.
+     * @return Time of Event.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Gets the Customer Id of the current record.
+     * @return Id of Customer.
+     */
+    public int getID() {
+        return id;
+    }
+
+    /**
+     * Gets the Server Id of the current record.
+     * @return Id of Server, 0 if there is no Server.
+     */
+    public int getServerID() {
+        return serverId;
+    }
+
+    /**
+     * Gets the Status of the current record.
+     * @return Status of Event.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks if the Customer of the current record is a GreedyCustomer.
+     * @return true if the Customer is greedy.
+     */
+    public boolean isGreedy() {
+        return (flags & BinarySink.GREEDY) != 0;
+    }
+
+    /**
+     * Checks if the Server of the current record is a self-checkout counter.
+     * @return true if the Server is a self-checkout counter.
+     */
+    public boolean isSelfCheck() {
+        return (flags & BinarySink.SELF_CHECK) != 0;
+    }
+
+    /**
+     * Logs every remaining record to an EventSink and flushes it.
+     * Replaying into a TextSink converts the trace back to the text format.
+     * @param sink EventSink to log records to.
+     */
+    public void replay(EventSink sink) {
+        while (next()) {
+            sink.log(time, id, isGreedy(), status, serverId, isSelfCheck());
+        }
+        sink.flush();
+    }
+
+    /**
+     * Closes the trace file.
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer map(long position) {
+        try {
+            long size = Math.min(BinarySink.CHUNK, end - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Prints a binary trace in the text format.
+     * @param args Path of the binary trace.
+     */
+    public static void main(String[] args) {
+        TraceReader reader = new TraceReader(Paths.get(args[0]));
+        reader.replay(new TextSink(System.out));
+        reader.close();
+    }
+}
@@ -0,0 +1,95 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A RandomStream using the xoroshiro128++ generator, seeded with SplitMix64.
+ * The generator has a period of 2^128 - 1 and can jump ahead by 2^64 numbers,
+ * so a single seed can be split into many streams that never overlap.
+ */
+class XoroshiroStream implements RandomStream {
+    private static final long[] JUMP = {0x2bd7a6a6e99c2ddcL, 0x0992ccaf6a6fca05L};
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long s0;
+    private long s1;
+
+    /**
+     * Creates a XoroshiroStream whose state is generated from a seed by SplitMix64.
+     * @param seed Seed.
+     */
+    XoroshiroStream(long seed) {
+        seed += 0x9e3779b97f4a7c15L;
+        s0 = mix(seed);
+        seed += 0x9e3779b97f4a7c15L;
+        s1 = mix(seed);
+    }
+
+    /**
+     * Creates a XoroshiroStream with the same state as another.
+     * @param other Stream to copy.
+     */
+    XoroshiroStream(XoroshiroStream other) {
+        s0 = other.s0;
+        s1 = other.s1;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(s0);
+        out.writeLong(s1);
+    }
+
+    @Override
+    public void read(DataInput in) throws IOException {
+        s0 = in.readLong();
+        s1 = in.readLong();
+    }
+
+    /**
+     * Generates the next 64 random bits.
+     * @return Random long.
+     */
+    long nextLong() {
+        long result = Long.rotateLeft(s0 + s1, 17) + s0;
+        s1 ^= s0;
+        s0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+        s1 = Long.rotateLeft(s1, 28);
+        return result;
+    }
+
+    /**
+     * Advances the stream by 2^64 numbers, as if nextLong had been called 2^64 times.
+     */
+    void jump() {
+        long t0 = 0;
+        long t1 = 0;
+        for (long jump : JUMP) {
+            for (int b = 0; b < 64; b++) {
+                if ((jump & (1L << b)) != 0) {
+                    t0 ^= s0;
+                    t1 ^= s1;
+                }
+                nextLong();
+            }
+        }
+        s0 = t0;
+        s1 = t1;
+    }
+
+    /**
+     * SplitMix64 output function.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,61 @@
+package cs2030.simulator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the EventQueues with the hold model: the queue is kept at a fixed size while
+ * the earliest Event is repeatedly polled and replaced by a later one.
+ * One operation is one poll and one add.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueueBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"contractQueue", "eventHeap"})
+    private String queue;
+
+    private final double[] delays = new double[1 << 16];
+    private final Server server = new Server(1);
+    private EventQueue events;
+    private int next;
+
+    /**
+     * Fills the queue with size Events at exponentially distributed times.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = -Math.log(random.nextDouble());
+        }
+        events = queue.equals("eventHeap") ? new EventHeap() : new ContractQueue();
+        for (int i = 0; i < size; i++) {
+            events.add(delays[i & (delays.length - 1)], i + 1, false, Status.SERVED, server);
+        }
+    }
+
+    /**
+     * Polls the earliest Event and adds it back later.
+     * @return Id of the polled Event.
+     */
+    @Benchmark
+    public int hold() {
+        events.poll();
+        int id = events.getID();
+        events.add(events.getTime() + delays[next++ & (delays.length - 1)], id, false,
+            Status.SERVED, server);
+        return id;
+    }
+}
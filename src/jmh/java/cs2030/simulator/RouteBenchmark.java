@@ -0,0 +1,111 @@
+package cs2030.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures Server selection and RoutingPolicies for different numbers of Servers.
+ * One operation is one update of the ServerIndex, at a Server picked at random,
+ * followed by one query.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RouteBenchmark {
+    private static final int PICKS = 1 << 20;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int servers;
+
+    private ServerIndex index;
+    private List<Server> serverList;
+    private final Customer customer = new Customer(1, Status.ARRIVED, 0);
+    private final Customer greedy = new GreedyCustomer(1, Status.ARRIVED, 0);
+    private int[] picks;
+    private int next;
+
+    /**
+     * Creates busy Servers with empty queues.
+     */
+    @Setup
+    public void setUp() {
+        index = new ServerIndex(servers, servers);
+        serverList = new ArrayList<>(servers);
+        for (int i = 1; i <= servers; i++) {
+            serverList.add(new Server(i));
+            index.setNextTime(i, 1);
+        }
+        index.setRun(new RandomGenerator(1, 1, 1, 1, false), 1);
+        picks = new Random(1).ints(PICKS, 1, servers + 1).toArray();
+    }
+
+    /**
+     * Makes a Server idle or busy, then finds an idle Server.
+     * @return Id of the idle Server, -1 if there is none.
+     */
+    @Benchmark
+    public int findServer() {
+        int i = next++;
+        index.setNextTime(picks[i & (PICKS - 1)], i & 1);
+        return index.findIdle(0.5);
+    }
+
+    /**
+     * Changes a queue length, then finds a Server as a Customer.
+     * @return Id of the Server found, 0 if there is none.
+     */
+    @Benchmark
+    public int customerFindServer() {
+        return findServer(customer);
+    }
+
+    /**
+     * Changes a queue length, then finds a Server as a GreedyCustomer.
+     * @return Id of the Server found, 0 if there is none.
+     */
+    @Benchmark
+    public int greedyFindServer() {
+        return findServer(greedy);
+    }
+
+    /**
+     * Changes a queue length, then routes with POWER_OF_TWO.
+     * @return Id of the queue chosen.
+     */
+    @Benchmark
+    public int powerOfTwo() {
+        return route(RoutingPolicy.POWER_OF_TWO);
+    }
+
+    /**
+     * Changes a queue length, then routes with IDLE_QUEUE.
+     * @return Id of the queue chosen.
+     */
+    @Benchmark
+    public int idleQueue() {
+        return route(RoutingPolicy.IDLE_QUEUE);
+    }
+
+    private int findServer(Customer c) {
+        int i = next++;
+        index.setQueueLength(picks[i & (PICKS - 1)], i % 3);
+        Server s = c.findServer(serverList, index, 2);
+        return s == null ? 0 : s.getID();
+    }
+
+    private int route(RoutingPolicy policy) {
+        int i = next++;
+        index.setQueueLength(picks[i & (PICKS - 1)], i % 3);
+        return policy.route(index, 2, 0);
+    }
+}
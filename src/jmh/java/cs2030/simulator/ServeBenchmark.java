@@ -0,0 +1,40 @@
+package cs2030.simulator;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures end-to-end serve throughput with each EventQueue.
+ * One operation is one whole run of a store with 10 Servers and 5 self-checkout counters,
+ * whose trace is logged to a NullSink. The number of Events handled is returned, so the run
+ * cannot be removed, and the GC profiler reports the bytes allocated per run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ServeBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int count;
+
+    @Param({"contractQueue", "eventHeap"})
+    private String events;
+
+    /**
+     * Runs one store.
+     * @return Number of Events handled.
+     */
+    @Benchmark
+    public long serve() {
+        Simulator sim = new Simulator(10, 5);
+        sim.setEventSink(new NullSink());
+        sim.setPrimitiveEvents(events.equals("eventHeap"));
+        sim.serve(count, 5, 1, 14.0, 1.0, 0.5, 0.3, 0.5);
+        return sim.getMetrics().getEvents();
+    }
+}